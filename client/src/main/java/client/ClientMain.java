@@ -4,13 +4,15 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
+import chess.ChessGame;
 import chess.ChessGame.TeamColor;
 import model.AuthData;
-import model.GameData;
+import model.GameDataReport;
+import model.GameListRequest;
 
 public class ClientMain {
     private final static ServerFacade SERVER_CONNECTION = new ServerFacade("http://127.0.0.1:8080");
-    private final static List<GameData> GAME_LIST = new ArrayList<>();
+    private final static List<GameDataReport> GAME_LIST = new ArrayList<>();
     public static void main(String[] args) {
         System.out.println("  ╭─────╮ ╭─╮ ╭─╮ ╭─────╮ ╭─────╮ ╭─────╮  ");
         System.out.println("  │ ╭───╯ │ │ │ │ │ ╭───╯ │ ╭───╯ │ ╭───╯  ");
@@ -169,7 +171,7 @@ public class ClientMain {
         }
     }
 
-    private static void gameScreen(AuthData user, GameData game, Scanner scanner, String color) {
+    private static void gameScreen(AuthData user, GameDataReport game, Scanner scanner, String color) {
         var session = true;
         var perspective = TeamColor.WHITE;
         if (color.equals("BLACK")) {
@@ -177,7 +179,8 @@ public class ClientMain {
         }
         while(session) {
             System.out.print("\u001b[H\u001b[2J");
-            Renderer.render(game.game(), perspective);
+            // the lobby only lists summaries, and no moves can be made yet, so every game is at the start
+            Renderer.render(new ChessGame(), perspective);
             System.out.printf("[" + game.gameName() + "]" + " control >> ");
             var command = scanner.nextLine().trim();
             if (command.equals("q") || command.equals("quit")) {
@@ -238,15 +241,25 @@ public class ClientMain {
         return color;
     }
 
+    /**
+     * Fetches the lobby a page at a time, following each page's cursor to
+     * the next
+     */
     private static void updateGameList(AuthData user) {
-        var serverGames = serverRequestHandler(() -> SERVER_CONNECTION.listGames(user.authToken()));
-        if (serverGames != null) {
-            for (GameData game : serverGames.games()) {
+        String cursor = null;
+        do {
+            var request = new GameListRequest(false, false, null, cursor, null);
+            var serverGames = serverRequestHandler(() -> SERVER_CONNECTION.listGames(user.authToken(), request));
+            if (serverGames == null) {
+                return;
+            }
+            for (GameDataReport game : serverGames.games()) {
                 if (!GAME_LIST.contains(game)) {
                     GAME_LIST.add(game);
                 }
             }
-        }
+            cursor = serverGames.nextCursor();
+        } while (cursor != null);
     }
 
     
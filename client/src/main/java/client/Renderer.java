@@ -21,9 +21,9 @@ public class Renderer {
                 for (int j = 0; j < 3; j++) {
                     for (int x = 0; x < 10; x++) {
                         if (perspective == TeamColor.WHITE) {
-                            renderLine(x, (9-y), j, board.getPiece(new ChessPosition((9-y), x)), perspective);
+                            renderLine(x, (9-y), j, board.getPiece(ChessPosition.of((9-y), x)), perspective);
                         } else {
-                            renderLine(x, y, j, board.getPiece(new ChessPosition(y, (9-x))), perspective);
+                            renderLine(x, y, j, board.getPiece(ChessPosition.of(y, (9-x))), perspective);
                         }
                         
                     }
@@ -1,21 +1,25 @@
 package client;
 
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpRequest.Builder;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
-import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
 import model.AuthData;
+import model.GameListRequest;
 import model.GameReport;
 import model.GameRequest;
 import model.JoinRequest;
+import model.Json;
 import model.LoginRequest;
 import model.UserData;
 
@@ -23,12 +27,25 @@ public class ServerFacade {
     private String url;
     private final HttpClient client = HttpClient.newHttpClient();
 
+    /**
+     * A lobby page fetched before and the server's tag for it, sent back as
+     * If-None-Match so an unchanged lobby comes back as 304 with no body
+     */
+    private record CachedList(String tag, GameReport report) {
+    }
+
+    /**
+     * Every page of the lobby fetched under the current tag, keyed by auth
+     * token and endpoint, so each page of a crawl can come back as 304
+     */
+    private final Map<String, CachedList> cachedLists = new ConcurrentHashMap<>();
+
     public ServerFacade(String url){
         this.url = url;
     }
 
     public AuthData login(String user, String password) throws Exception {
-        var body = new Gson().toJson(new LoginRequest(user, password));
+        var body = Json.GSON.toJson(new LoginRequest(user, password));
         var endpoint = "/session";
         var request = HttpRequest.newBuilder()
             .uri(new URI(url + endpoint))
@@ -37,14 +54,14 @@ public class ServerFacade {
         var response = client.send(request, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() == 200) {
-            return new Gson().fromJson(response.body(), AuthData.class);
+            return Json.GSON.fromJson(response.body(), AuthData.class);
         }
 
         throw new Exception("Error " + response.statusCode() + ": " + response.body());
     }
 
     public AuthData register(String user, String email, String password) throws Exception {
-        var body = new Gson().toJson(new UserData(user, password, email));
+        var body = Json.GSON.toJson(new UserData(user, password, email));
         var endpoint = "/user";
         var request = HttpRequest.newBuilder()
             .uri(new URI(url + endpoint))
@@ -53,7 +70,7 @@ public class ServerFacade {
         var response = client.send(request, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() == 200) {
-            return new Gson().fromJson(response.body(), AuthData.class);
+            return Json.GSON.fromJson(response.body(), AuthData.class);
         }
 
         throw new Exception("" + response.statusCode() + ": " + response.body());
@@ -75,7 +92,7 @@ public class ServerFacade {
     }
 
     public int createGame(String name, String authToken) throws Exception {
-        var body = new Gson().toJson(new GameRequest(name));
+        var body = Json.GSON.toJson(new GameRequest(name));
         var endpoint = "/game";
         var request = HttpRequest.newBuilder()
             .uri(new URI(url + endpoint))
@@ -86,7 +103,7 @@ public class ServerFacade {
         var response = client.send(request, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() == 200) {
-            Map<String, Integer> result = new Gson().fromJson(response.body(), new TypeToken<Map<String, Integer>>() {}.getType());
+            Map<String, Integer> result = Json.GSON.fromJson(response.body(), new TypeToken<Map<String, Integer>>() {}.getType());
             return result.get("gameID");
         }
 
@@ -94,15 +111,64 @@ public class ServerFacade {
     }
 
     public GameReport listGames(String authToken) throws Exception {
-        var response = httpRequestHelper("/game", (req) -> {
-            return req.header("authorization", authToken).GET();
-        });
+        return listGames(authToken, GameListRequest.ALL);
+    }
+
+    /**
+     * Fetches one page of the lobby. Pass the report's nextCursor back in
+     * the next request to get the page after it.
+     */
+    public GameReport listGames(String authToken, GameListRequest list) throws Exception {
+        var query = new StringBuilder();
+        if (list.openSeat()) {
+            query.append("&open=true");
+        }
+        if (list.mine()) {
+            query.append("&mine=true");
+        }
+        if (list.namePrefix() != null) {
+            query.append("&prefix=").append(URLEncoder.encode(list.namePrefix(), StandardCharsets.UTF_8));
+        }
+        if (list.cursor() != null) {
+            query.append("&cursor=").append(URLEncoder.encode(list.cursor(), StandardCharsets.UTF_8));
+        }
+        if (list.limit() != null) {
+            query.append("&limit=").append(list.limit());
+        }
+        var endpoint = query.isEmpty() ? "/game" : "/game?" + query.substring(1);
+        var cacheKey = authToken + " " + endpoint;
+        var cached = cachedLists.get(cacheKey);
+        boolean canReuse = cached != null;
+        var builder = HttpRequest.newBuilder()
+            .uri(new URI(url + endpoint))
+            .timeout(java.time.Duration.ofMillis(5000))
+            .header("authorization", authToken)
+            .GET();
+        if (canReuse) {
+            builder.header("If-None-Match", cached.tag());
+        }
+        var response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
 
-        return new Gson().fromJson(response, GameReport.class);
+        if (response.statusCode() == 304 && canReuse) {
+            return cached.report();
+        }
+        if (response.statusCode() != 200) {
+            throw new Exception("" + response.statusCode() + ": " + response.body());
+        }
+        var report = Json.GSON.fromJson(response.body(), GameReport.class);
+        var tag = response.headers().firstValue("ETag");
+        if (tag.isPresent()) {
+            // one tag covers the whole lobby, so a new one means every other page is out of date
+            cachedLists.values().removeIf((other) -> !other.tag().equals(tag.get()));
+            cachedLists.put(cacheKey, new CachedList(tag.get(), report));
+        } else {
+            cachedLists.remove(cacheKey);
+        }
+        return report;
     }
 
     public void joinGame(String authToken, int id, String color) throws Exception {
-        var body = new Gson().toJson(new JoinRequest(color, id));
+        var body = Json.GSON.toJson(new JoinRequest(color, id));
         httpRequestHelper("/game", (req) -> {
             return req.PUT(BodyPublishers.ofString(body))
             .header("authorization", authToken);
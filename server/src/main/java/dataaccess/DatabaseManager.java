@@ -1,6 +1,7 @@
 package dataaccess;
 
 import java.sql.*;
+import java.util.Locale;
 import java.util.Properties;
 import java.util.function.Function;
 
@@ -9,6 +10,7 @@ public class DatabaseManager {
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static SQLGameDAO.GameFormat gameFormat;
 
     /*
      * Load the database information for the db.properties file.
@@ -53,6 +55,14 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * @return how games are stored, from db.gameFormat: "json" unless it is
+     * set to "binary"
+     */
+    static SQLGameDAO.GameFormat getGameFormat() {
+        return gameFormat;
+    }
+
     static <T> T runSQLCommand(String query, Function<PreparedStatement, T> exec) {
         try (var db = DatabaseManager.getConnection()) {
             var command = db.prepareStatement(query, 1);
@@ -79,6 +89,8 @@ public class DatabaseManager {
         databaseName = props.getProperty("db.name");
         dbUsername = props.getProperty("db.user");
         dbPassword = props.getProperty("db.password");
+        gameFormat = SQLGameDAO.GameFormat.valueOf(props.getProperty("db.gameFormat", "json")
+                .toUpperCase(Locale.ROOT));
 
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
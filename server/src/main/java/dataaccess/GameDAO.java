@@ -1,12 +1,24 @@
 package dataaccess;
 
 import model.GameData;
+import model.GameDataReport;
 import java.util.Collection;
+import java.util.List;
 
 public interface GameDAO {
     int createGame(String gameName);
     GameData getGame(int gameID);
     Collection<GameData> listGames();
+    Collection<GameDataReport> listGameSummaries();
+
+    /**
+     * Lists one page of games in order of ID
+     *
+     * @param filter  which games to include
+     * @param afterID only games with a higher ID than this
+     * @param limit   the most games to return
+     */
+    List<GameDataReport> listGameSummaries(GameFilter filter, int afterID, int limit);
     void updateGame(GameData newGameState);
     public void clear();
 }
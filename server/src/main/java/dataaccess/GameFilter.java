@@ -0,0 +1,18 @@
+package dataaccess;
+
+/**
+ * Narrows down a game listing. Null fields do not filter anything.
+ *
+ * @param openSeat   only games with a seat still free
+ * @param player     only games with this user in either seat
+ * @param namePrefix only games whose name starts with this
+ */
+public record GameFilter(boolean openSeat, String player, String namePrefix) {
+    public static final GameFilter ALL = new GameFilter(false, null, null);
+
+    boolean matches(String whiteUsername, String blackUsername, String gameName) {
+        return (!openSeat || whiteUsername == null || blackUsername == null)
+                && (player == null || player.equals(whiteUsername) || player.equals(blackUsername))
+                && (namePrefix == null || (gameName != null && gameName.startsWith(namePrefix)));
+    }
+}
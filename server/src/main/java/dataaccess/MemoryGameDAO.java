@@ -2,16 +2,20 @@ package dataaccess;
 
 import chess.ChessGame;
 import model.GameData;
+import model.GameDataReport;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import com.google.gson.JsonSyntaxException;
 
 public class MemoryGameDAO implements GameDAO {
-    private final Collection<GameData> gameList;
+    private final NavigableMap<Integer, GameData> gameList;
 
     public MemoryGameDAO() {
-        gameList = new HashSet<>();
+        gameList = new TreeMap<>();
     }
 
     @Override
@@ -20,30 +24,47 @@ public class MemoryGameDAO implements GameDAO {
             throw new JsonSyntaxException("");
         }
         int id = gameList.size() + 1;
-        gameList.add(new GameData(id, null, null, gameName, new ChessGame()));
+        gameList.put(id, new GameData(id, null, null, gameName, new ChessGame()));
         return id;
     }
 
     @Override
     public GameData getGame(int gameID) {
-        GameData[] list = gameList.toArray(new GameData[gameList.size()]);
-        for (GameData data : list) {
-            if (data.gameID() == gameID) {
-                return data;
-            }
+        GameData data = gameList.get(gameID);
+        if (data == null) {
+            throw new DataAccessException();
         }
-        throw new DataAccessException();
+        return data;
     }
 
     @Override
     public Collection<GameData> listGames() {
-        return gameList;
+        return gameList.values();
+    }
+
+    @Override
+    public Collection<GameDataReport> listGameSummaries() {
+        return listGameSummaries(GameFilter.ALL, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<GameDataReport> listGameSummaries(GameFilter filter, int afterID, int limit) {
+        var page = new ArrayList<GameDataReport>();
+        for (GameData data : gameList.tailMap(afterID, false).values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (filter.matches(data.whiteUsername(), data.blackUsername(), data.gameName())) {
+                page.add(new GameDataReport(data.gameID(), data.whiteUsername(), data.blackUsername(),
+                        data.gameName()));
+            }
+        }
+        return page;
     }
 
     @Override
     public void updateGame(GameData newGameState) {
-        gameList.removeIf(gameData -> gameData.gameID() == newGameState.gameID());
-        gameList.add(newGameState);
+        gameList.put(newGameState.gameID(), newGameState);
     }
 
     @Override
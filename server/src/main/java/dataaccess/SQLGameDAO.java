@@ -1,26 +1,54 @@
 package dataaccess;
 
 import chess.ChessGame;
-import com.google.gson.Gson;
+import chess.codec.GameCodec;
 import com.google.gson.JsonSyntaxException;
 
 import model.GameData;
+import model.GameDataReport;
+import model.Json;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 
 public class SQLGameDAO implements GameDAO {
+    /**
+     * How the game column holds each game, chosen by db.gameFormat in
+     * db.properties
+     */
+    enum GameFormat {
+        /**
+         * Text from the shared Gson in a JSON column
+         */
+        JSON,
+        /**
+         * {@link GameCodec} bytes in a BLOB column, a fraction of the size
+         * and much quicker to read back. Rows written in either format are
+         * read whichever is configured, and the column stays a BLOB after
+         * switching back to JSON.
+         */
+        BINARY
+    }
+
+    private final GameFormat format;
+
     public SQLGameDAO() {
+        format = DatabaseManager.getGameFormat();
         var query = """
                 CREATE TABLE IF NOT EXISTS GameTable (
                 gameID INT AUTO_INCREMENT,
                 whiteUsername VARCHAR(255),
                 blackUsername VARCHAR(255),
                 gameName VARCHAR(255),
-                game JSON,
-                PRIMARY KEY (gameID));""";
+                game %s,
+                PRIMARY KEY (gameID),
+                INDEX (gameName));""".formatted(format == GameFormat.BINARY ? "BLOB" : "JSON");
         DatabaseManager.createDatabase();
         DatabaseManager.runSQLCommand(query, (command) -> {
             try {
@@ -30,6 +58,66 @@ public class SQLGameDAO implements GameDAO {
                 throw new DataAccessException("table creation failed");
             }
         });
+        addNameIndex();
+        if (format == GameFormat.BINARY) {
+            convertJsonColumn();
+        }
+    }
+
+    /**
+     * Adds the gameName index to a table created before it was part of the
+     * table definition, which CREATE TABLE IF NOT EXISTS leaves as it was
+     */
+    private void addNameIndex() {
+        var query = """
+                SELECT COUNT(*) FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'GameTable' AND COLUMN_NAME = 'gameName'""";
+        boolean hasIndex = DatabaseManager.runSQLCommand(query, (command) -> {
+            try {
+                var result = command.executeQuery();
+                return result.next() && result.getInt(1) > 0;
+            } catch (SQLException e) {
+                throw new DataAccessException("table creation failed");
+            }
+        });
+        if (!hasIndex) {
+            DatabaseManager.runSQLCommand("CREATE INDEX gameName ON GameTable (gameName)", (command) -> {
+                try {
+                    command.executeUpdate();
+                    return 0;
+                } catch (SQLException e) {
+                    throw new DataAccessException("table creation failed");
+                }
+            });
+        }
+    }
+
+    /**
+     * Turns a JSON game column from before the switch to binary into a BLOB.
+     * The rows already there keep their JSON text, which reads back the same.
+     */
+    private void convertJsonColumn() {
+        var query = """
+                SELECT DATA_TYPE FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'GameTable' AND COLUMN_NAME = 'game'""";
+        boolean isJson = DatabaseManager.runSQLCommand(query, (command) -> {
+            try {
+                var result = command.executeQuery();
+                return result.next() && result.getString(1).equalsIgnoreCase("json");
+            } catch (SQLException e) {
+                throw new DataAccessException("table creation failed");
+            }
+        });
+        if (isJson) {
+            DatabaseManager.runSQLCommand("ALTER TABLE GameTable MODIFY game BLOB", (command) -> {
+                try {
+                    command.executeUpdate();
+                    return 0;
+                } catch (SQLException e) {
+                    throw new DataAccessException("table creation failed");
+                }
+            });
+        }
     }
 
     @Override
@@ -43,7 +131,7 @@ public class SQLGameDAO implements GameDAO {
                 command.setString(1, null);
                 command.setString(2, null);
                 command.setString(3, gameName);
-                command.setString(4, new Gson().toJson(new ChessGame()));
+                setGame(command, 4, new ChessGame());
                 command.executeUpdate();
 
                 var result = command.getGeneratedKeys();
@@ -92,6 +180,68 @@ public class SQLGameDAO implements GameDAO {
         });
     }
 
+    /**
+     * Lists the games without reading their game column, so no board is
+     * fetched or parsed
+     */
+    @Override
+    public Collection<GameDataReport> listGameSummaries() {
+        return listGameSummaries(GameFilter.ALL, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads a page by seeking to the first ID past the last page on the
+     * primary key, so a page costs the same however deep into the list it is
+     */
+    @Override
+    public List<GameDataReport> listGameSummaries(GameFilter filter, int afterID, int limit) {
+        var query = new StringBuilder("SELECT gameID, whiteUsername, blackUsername, gameName FROM GameTable"
+                + " WHERE gameID > ?");
+        if (filter.openSeat()) {
+            query.append(" AND (whiteUsername IS NULL OR blackUsername IS NULL)");
+        }
+        if (filter.player() != null) {
+            query.append(" AND (whiteUsername = ? OR blackUsername = ?)");
+        }
+        if (filter.namePrefix() != null) {
+            query.append(" AND gameName LIKE ?");
+        }
+        query.append(" ORDER BY gameID LIMIT ?");
+        return DatabaseManager.runSQLCommand(query.toString(), (command) -> {
+            try {
+                int index = 1;
+                command.setInt(index++, afterID);
+                if (filter.player() != null) {
+                    command.setString(index++, filter.player());
+                    command.setString(index++, filter.player());
+                }
+                if (filter.namePrefix() != null) {
+                    command.setString(index++, likePrefix(filter.namePrefix()));
+                }
+                command.setInt(index, limit);
+                var result = command.executeQuery();
+                var list = new ArrayList<GameDataReport>();
+                while(result.next()) {
+                    list.add(new GameDataReport(result.getInt("gameID"),
+                            result.getString("whiteUsername"),
+                            result.getString("blackUsername"),
+                            result.getString("gameName")));
+                }
+                return list;
+            } catch (SQLException e) {
+                throw new DataAccessException("list games failed");
+            }
+        });
+    }
+
+    /**
+     * @return a LIKE pattern matching names that start with the prefix,
+     * with any wildcards in the prefix itself escaped
+     */
+    private static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
     @Override
     public void updateGame(GameData newGameState) {
         var query = "UPDATE GameTable SET whiteUsername=?, blackUsername=?, gameName=?, game=? WHERE gameID=?";
@@ -100,7 +250,7 @@ public class SQLGameDAO implements GameDAO {
                 command.setString(1, newGameState.whiteUsername());
                 command.setString(2, newGameState.blackUsername());
                 command.setString(3, newGameState.gameName());
-                command.setString(4, new Gson().toJson(newGameState.game()));
+                setGame(command, 4, newGameState.game());
                 command.setInt(5, newGameState.gameID());
 
                 command.executeUpdate();
@@ -124,11 +274,39 @@ public class SQLGameDAO implements GameDAO {
         });
     }
 
+    private void setGame(PreparedStatement command, int index, ChessGame game) throws SQLException {
+        if (format == GameFormat.BINARY) {
+            command.setBytes(index, GameCodec.toBytes(game));
+        } else {
+            command.setString(index, Json.GSON.toJson(game));
+        }
+    }
+
     private GameData resultToGameData(ResultSet result) throws SQLException {
         return new GameData(result.getInt("gameID"),
                 result.getString("whiteUsername"),
                 result.getString("blackUsername"),
                 result.getString("gameName"),
-                new Gson().fromJson(result.getString("game"), ChessGame.class));
+                readGame(result));
+    }
+
+    /**
+     * Reads a game in either format, whichever is configured now, since the
+     * column keeps whatever was written before a switch
+     */
+    private ChessGame readGame(ResultSet result) throws SQLException {
+        byte[] bytes = result.getBytes("game");
+        if (bytes == null) {
+            return null;
+        }
+        // JSON text starts with a quote or a brace, never the version byte
+        if (bytes.length > 0 && bytes[0] == GameCodec.VERSION) {
+            try {
+                return GameCodec.fromBytes(bytes);
+            } catch (IllegalArgumentException e) {
+                throw new DataAccessException(e.getMessage());
+            }
+        }
+        return Json.GSON.fromJson(new String(bytes, StandardCharsets.UTF_8), ChessGame.class);
     }
 }
@@ -1,6 +1,5 @@
 package server;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 
 import dataaccess.*;
@@ -49,24 +48,24 @@ public class Server {
 
     public void registerUser(Context context) { // POST /user
         handler(context, (Context ctx) -> {
-            var user = new Gson().fromJson(ctx.body(), UserData.class);
+            var user = Json.GSON.fromJson(ctx.body(), UserData.class);
             userService.registerUser(user);
             var token = userService.loginUser(new LoginRequest(user.username(), user.password()));
             var result = new AuthData(token, user.username());
 
             ctx.status(200);
-            ctx.result(new Gson().toJson(result));
+            ctx.result(Json.GSON.toJson(result));
         });
     }
 
     public void loginUser(Context context) { // POST /session
         handler(context, (Context ctx) -> {
-            var req = new Gson().fromJson(ctx.body(), LoginRequest.class);
+            var req = Json.GSON.fromJson(ctx.body(), LoginRequest.class);
             var token = userService.loginUser(req);
             var result = new AuthData(token, req.username());
 
             ctx.status(200);
-            ctx.result(new Gson().toJson(result));
+            ctx.result(Json.GSON.toJson(result));
         });
     }
 
@@ -79,19 +78,45 @@ public class Server {
         });
     }
 
+    /**
+     * Answers a poll with 304 when the caller's tag is still the lobby's.
+     * The tag comes from memory, but the 304 still checks the auth token
+     * against the auth store, so a poll from an expired session is refused
+     * instead of being answered without touching the database.
+     */
     public void listGames(Context context) { // GET /game
         handler(context, (Context ctx) -> {
             var token = ctx.header("authorization");
-            var report = new GameReport(gameService.listGames(token));
+            // taken before the list is read, so a change made meanwhile shows up on the next poll
+            var tag = gameService.lobbyTag();
+            if (tagMatches(ctx.header("If-None-Match"), tag)) {
+                if (!authService.verify(token)) {
+                    throw new NotAuthorizedError();
+                }
+                ctx.header("ETag", tag);
+                // mine=true lists differ by caller under the same tag
+                ctx.header("Vary", "authorization");
+                ctx.status(304);
+                return;
+            }
+            var request = new GameListRequest(
+                    "true".equals(ctx.queryParam("open")),
+                    "true".equals(ctx.queryParam("mine")),
+                    ctx.queryParam("prefix"),
+                    ctx.queryParam("cursor"),
+                    parseLimit(ctx.queryParam("limit")));
+            var report = gameService.listGames(token, request);
+            ctx.header("ETag", tag);
+            ctx.header("Vary", "authorization");
             ctx.status(200);
-            ctx.result(new Gson().toJson(report));
+            ctx.result(Json.GSON.toJson(report));
         });
     }
 
     public void newGame(Context context) { // POST /game
         handler(context, (Context ctx) -> {
             var token = ctx.header("authorization");
-            var req = new Gson().fromJson(ctx.body(), GameRequest.class);
+            var req = Json.GSON.fromJson(ctx.body(), GameRequest.class);
             var game = gameService.newGame(token, req.gameName());
             ctx.status(200);
             ctx.result("{\"gameID\":" + game + "}");
@@ -101,7 +126,7 @@ public class Server {
     public void joinGame(Context context) { // PUT /game
         handler(context, (Context ctx) -> {
             var token = ctx.header("authorization");
-            var req = new Gson().fromJson(ctx.body(), JoinRequest.class);
+            var req = Json.GSON.fromJson(ctx.body(), JoinRequest.class);
             var user = authService.getUsername(token);
             gameService.joinGame(token, req, user);
             
@@ -120,6 +145,36 @@ public class Server {
         });
     }
 
+    /**
+     * @return true if an If-None-Match header lists the tag, or is "*"
+     */
+    private static boolean tagMatches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.strip();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Integer parseLimit(String limit) {
+        if (limit == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(limit);
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException("bad req: limit is not a number");
+        }
+    }
+
     // All in one error handler function
     public void handler(Context ctx, Consumer<Context> endpoint) { 
         try {
@@ -1,29 +1,92 @@
 package service;
 
 import dataaccess.GameDAO;
+import dataaccess.GameFilter;
 import model.GameData;
+import model.GameDataReport;
+import model.GameListRequest;
+import model.GameReport;
 import model.JoinRequest;
 
-import java.util.Collection;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import com.google.gson.JsonSyntaxException;
 
 public class GameService {
+    /**
+     * The most games one page holds, whatever limit is asked for
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final GameDAO db;
     private final AuthService authService;
 
+    /**
+     * Counts changes to the lobby. It only moves after a change has been
+     * written, so a list read under one version never holds less than that
+     * version's games.
+     */
+    private final AtomicLong lobbyVersion = new AtomicLong();
+
+    /**
+     * Tells this server's versions apart from those of an earlier run, which
+     * also started counting from 0
+     */
+    private final String lobbyEpoch = Long.toString(System.currentTimeMillis(), 36);
+
     public GameService(GameDAO db, AuthService authService){
         this.db = db;
         this.authService = authService;
     }
 
-    public Collection<GameData> listGames(String authToken) {
-        return secure(authToken, db::listGames);
+    /**
+     * Lists one page of the lobby. Pages run in order of game ID, and the
+     * cursor holds the last ID of the page before, so games created while a
+     * client pages through are never skipped or repeated. Without a limit a
+     * page holds {@link #MAX_PAGE_SIZE} games.
+     */
+    public GameReport listGames(String authToken, GameListRequest request) {
+        return secure(authToken, () -> {
+            String player = request.mine() ? authService.getUsername(authToken) : null;
+            String prefix = request.namePrefix() == null || request.namePrefix().isEmpty()
+                    ? null : request.namePrefix();
+            var filter = new GameFilter(request.openSeat(), player, prefix);
+            int afterID = request.cursor() == null ? 0 : decodeCursor(request.cursor());
+            if (request.limit() != null && request.limit() < 1) {
+                throw new JsonSyntaxException("bad req: limit must be positive");
+            }
+
+            // one extra game tells whether there is another page
+            int limit = request.limit() == null ? MAX_PAGE_SIZE : Math.min(request.limit(), MAX_PAGE_SIZE);
+            List<GameDataReport> games = db.listGameSummaries(filter, afterID, limit + 1);
+            if (games.size() <= limit) {
+                return new GameReport(games, null);
+            }
+            games = List.copyOf(games.subList(0, limit));
+            return new GameReport(games, encodeCursor(games.get(limit - 1).gameID()));
+        });
+    }
+
+    /**
+     * Gets an entity tag for the lobby as it is now. The tag changes whenever
+     * a game is created, joined or cleared, so a client holding the current
+     * tag already has the current list. Reading it never touches the
+     * database.
+     */
+    public String lobbyTag() {
+        return "\"" + lobbyEpoch + "." + lobbyVersion.get() + "\"";
     }
 
     public int newGame(String authToken, String gameName) {
-        return secure(authToken, () -> {return db.createGame(gameName);});
+        return secure(authToken, () -> {
+            int id = db.createGame(gameName);
+            lobbyVersion.incrementAndGet();
+            return id;
+        });
     }
 
     public void joinGame(String authToken, JoinRequest joinRequest, String user) {
@@ -44,6 +107,7 @@ public class GameService {
                         game.blackUsername(),
                         game.gameName(),
                         game.game()));
+                lobbyVersion.incrementAndGet();
             } else {
                 throw new UserAlreadyRegisteredError();
             }
@@ -55,6 +119,7 @@ public class GameService {
                         user,
                         game.gameName(),
                         game.game()));
+                lobbyVersion.incrementAndGet();
             } else {
                 throw new UserAlreadyRegisteredError();
             }
@@ -67,6 +132,23 @@ public class GameService {
 
     public void clearDatabase() {
         db.clear();
+        lobbyVersion.incrementAndGet();
+    }
+
+    private static String encodeCursor(int lastID) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(ByteBuffer.allocate(4).putInt(lastID).array());
+    }
+
+    private static int decodeCursor(String cursor) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != 4) {
+                throw new JsonSyntaxException("bad req: invalid cursor");
+            }
+            return ByteBuffer.wrap(bytes).getInt();
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("bad req: invalid cursor");
+        }
     }
 
     private <T> T secure(String authToken, Supplier<T> secureCall) {
@@ -4,15 +4,19 @@ import model.GameData;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
 
 public class SQLGameDAOTests {
     @Test
@@ -98,4 +102,111 @@ public class SQLGameDAOTests {
         var newGame = new GameData(1, "bob", "boing", "gameBOB", new ChessGame());
         assertDoesNotThrow(() -> db.updateGame(newGame));
     }
+
+    @Test
+    void listGameSummariesTest() {
+        var db = new SQLGameDAO();
+        db.clear();
+        var id = db.createGame("game");
+        db.updateGame(new GameData(id, "bob", null, "game", new ChessGame()));
+
+        var summaries = db.listGameSummaries();
+        assertEquals(1, summaries.size());
+        var summary = summaries.iterator().next();
+        assertEquals(id, summary.gameID());
+        assertEquals("bob", summary.whiteUsername());
+        assertNull(summary.blackUsername());
+        assertEquals("game", summary.gameName());
+    }
+
+    @Test
+    void listGamesPageTest() {
+        var db = new SQLGameDAO();
+        db.clear();
+        int first = db.createGame("game1");
+        int second = db.createGame("game2");
+        int third = db.createGame("game3");
+
+        var page = db.listGameSummaries(GameFilter.ALL, 0, 2);
+        assertEquals(List.of(first, second), page.stream().map((data) -> data.gameID()).toList());
+
+        page = db.listGameSummaries(GameFilter.ALL, second, 2);
+        assertEquals(List.of(third), page.stream().map((data) -> data.gameID()).toList());
+
+        assertTrue(db.listGameSummaries(GameFilter.ALL, third, 2).isEmpty());
+    }
+
+    @Test
+    void listOpenGamesTest() {
+        var db = new SQLGameDAO();
+        db.clear();
+        int full = db.createGame("full");
+        int open = db.createGame("open");
+        db.updateGame(new GameData(full, "bob", "boing", "full", new ChessGame()));
+        db.updateGame(new GameData(open, "bob", null, "open", new ChessGame()));
+
+        var page = db.listGameSummaries(new GameFilter(true, null, null), 0, 10);
+        assertEquals(List.of(open), page.stream().map((data) -> data.gameID()).toList());
+    }
+
+    @Test
+    void listPlayerGamesTest() {
+        var db = new SQLGameDAO();
+        db.clear();
+        int white = db.createGame("white");
+        int black = db.createGame("black");
+        int other = db.createGame("other");
+        db.updateGame(new GameData(white, "bob", null, "white", new ChessGame()));
+        db.updateGame(new GameData(black, null, "bob", "black", new ChessGame()));
+        db.updateGame(new GameData(other, "boing", null, "other", new ChessGame()));
+
+        var page = db.listGameSummaries(new GameFilter(false, "bob", null), 0, 10);
+        assertEquals(List.of(white, black), page.stream().map((data) -> data.gameID()).toList());
+    }
+
+    @Test
+    void listNamedGamesTest() {
+        var db = new SQLGameDAO();
+        db.clear();
+        int match = db.createGame("bob's game");
+        db.createGame("boing's game");
+
+        var page = db.listGameSummaries(new GameFilter(false, null, "bob"), 0, 10);
+        assertEquals(List.of(match), page.stream().map((data) -> data.gameID()).toList());
+    }
+
+    @Test
+    void listNamedGamesWildcardTest() {
+        var db = new SQLGameDAO();
+        db.clear();
+        int percent = db.createGame("a%b");
+        db.createGame("axb");
+        int underscore = db.createGame("a_c");
+        db.createGame("abc");
+
+        var page = db.listGameSummaries(new GameFilter(false, null, "a%"), 0, 10);
+        assertEquals(List.of(percent), page.stream().map((data) -> data.gameID()).toList());
+
+        page = db.listGameSummaries(new GameFilter(false, null, "a_"), 0, 10);
+        assertEquals(List.of(underscore), page.stream().map((data) -> data.gameID()).toList());
+    }
+
+    /**
+     * Reads a game back in whichever format db.gameFormat selects
+     */
+    @Test
+    void gameRoundTripTest() throws Exception {
+        var db = new SQLGameDAO();
+        db.clear();
+        var id = db.createGame("game");
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        db.updateGame(new GameData(id, "bob", "boing", "game", game));
+
+        var read = db.getGame(id).game();
+        assertEquals(game.getBoard(), read.getBoard());
+        assertEquals(game.getTeamTurn(), read.getTeamTurn());
+        assertEquals(game.repetitionKeyCount(), read.repetitionKeyCount());
+    }
 }
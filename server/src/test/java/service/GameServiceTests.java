@@ -1,12 +1,16 @@
 package service;
 
 import dataaccess.*;
+import com.google.gson.JsonSyntaxException;
+import model.GameDataReport;
+import model.GameListRequest;
 import model.JoinRequest;
 import model.LoginRequest;
 import model.UserData;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -42,11 +46,104 @@ public class GameServiceTests {
         gameList.add(gameService.newGame(authToken, "game2"));
         gameList.add(gameService.newGame(authToken, "game3"));
 
-        for (var game : gameService.listGames(authToken)) {
+        for (var game : gameService.listGames(authToken, GameListRequest.ALL).games()) {
             assertTrue(gameList.contains(game.gameID()));
         }
     }
 
+    @Test
+    void listGamesShowsSeatsTest() {
+        var authToken = getAuthToken();
+        var gameService = setup();
+        var game = gameService.newGame(authToken, "game1");
+        gameService.joinGame(authToken, new JoinRequest("WHITE", game), username);
+
+        var list = gameService.listGames(authToken, GameListRequest.ALL).games();
+        assertEquals(1, list.size());
+        assertEquals(new GameDataReport(game, username, null, "game1"), list.iterator().next());
+    }
+
+    @Test
+    void listGamesPagesTest() {
+        var authToken = getAuthToken();
+        var gameService = setup();
+        for (int i = 1; i <= 5; i++) {
+            gameService.newGame(authToken, "game" + i);
+        }
+
+        var first = gameService.listGames(authToken, new GameListRequest(false, false, null, null, 2));
+        assertEquals(List.of(1, 2), first.games().stream().map(GameDataReport::gameID).toList());
+        var second = gameService.listGames(authToken,
+                new GameListRequest(false, false, null, first.nextCursor(), 2));
+        assertEquals(List.of(3, 4), second.games().stream().map(GameDataReport::gameID).toList());
+        var last = gameService.listGames(authToken,
+                new GameListRequest(false, false, null, second.nextCursor(), 2));
+        assertEquals(List.of(5), last.games().stream().map(GameDataReport::gameID).toList());
+        assertNull(last.nextCursor());
+
+        assertThrows(JsonSyntaxException.class, () -> gameService.listGames(authToken,
+                new GameListRequest(false, false, null, "not a cursor", 2)));
+        assertThrows(JsonSyntaxException.class, () -> gameService.listGames(authToken,
+                new GameListRequest(false, false, null, null, 0)));
+    }
+
+    @Test
+    void listGamesDefaultPageTest() {
+        var authToken = getAuthToken();
+        var gameService = setup();
+        for (int i = 0; i <= GameService.MAX_PAGE_SIZE; i++) {
+            gameService.newGame(authToken, "game" + i);
+        }
+
+        var first = gameService.listGames(authToken, GameListRequest.ALL);
+        assertEquals(GameService.MAX_PAGE_SIZE, first.games().size());
+        var last = gameService.listGames(authToken,
+                new GameListRequest(false, false, null, first.nextCursor(), null));
+        assertEquals(List.of(GameService.MAX_PAGE_SIZE + 1),
+                last.games().stream().map(GameDataReport::gameID).toList());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void listGamesFiltersTest() {
+        var authToken = getAuthToken();
+        var gameService = setup();
+        var full = gameService.newGame(authToken, "alpha");
+        var mine = gameService.newGame(authToken, "alpine");
+        gameService.newGame(authToken, "beta");
+        gameService.joinGame(authToken, new JoinRequest("WHITE", full), username);
+        gameService.joinGame(authToken, new JoinRequest("BLACK", full), username);
+        gameService.joinGame(authToken, new JoinRequest("WHITE", mine), username);
+
+        var open = gameService.listGames(authToken, new GameListRequest(true, false, "alp", null, null));
+        assertEquals(List.of(mine), open.games().stream().map(GameDataReport::gameID).toList());
+        var playing = gameService.listGames(authToken, new GameListRequest(false, true, null, null, null));
+        assertEquals(List.of(full, mine), playing.games().stream().map(GameDataReport::gameID).toList());
+        var named = gameService.listGames(authToken, new GameListRequest(false, false, "b", null, null));
+        assertEquals(List.of("beta"), named.games().stream().map(GameDataReport::gameName).toList());
+    }
+
+    @Test
+    void lobbyTagTracksChangesTest() {
+        var authToken = getAuthToken();
+        var gameService = setup();
+        var empty = gameService.lobbyTag();
+        gameService.listGames(authToken, GameListRequest.ALL).games();
+        assertEquals(empty, gameService.lobbyTag());
+
+        var game = gameService.newGame(authToken, "game");
+        var created = gameService.lobbyTag();
+        assertNotEquals(empty, created);
+        gameService.joinGame(authToken, new JoinRequest("WHITE", game), username);
+        var joined = gameService.lobbyTag();
+        assertNotEquals(created, joined);
+        assertThrows(UserAlreadyRegisteredError.class,
+                () -> gameService.joinGame(authToken, new JoinRequest("WHITE", game), username));
+        assertEquals(joined, gameService.lobbyTag());
+        gameService.clearDatabase();
+        assertNotEquals(joined, gameService.lobbyTag());
+    }
+
     @Test
     void listGamesUnauthorizedTest() {
         var authToken = getAuthToken();
@@ -56,7 +153,7 @@ public class GameServiceTests {
         gameList.add(gameService.newGame(authToken, "game2"));
         gameList.add(gameService.newGame(authToken, "game3"));
 
-        assertThrows(NotAuthorizedError.class, () -> gameService.listGames(new UUID(0, 0).toString()));
+        assertThrows(NotAuthorizedError.class, () -> gameService.listGames(new UUID(0, 0).toString(), GameListRequest.ALL));
     }
 
     @Test
@@ -138,7 +235,7 @@ public class GameServiceTests {
 
         // clear & test
         gameService.clearDatabase();
-        var list = gameService.listGames(authToken);
+        var list = gameService.listGames(authToken, GameListRequest.ALL).games();
         assertTrue(list.isEmpty());
     }
 
@@ -0,0 +1,283 @@
+package chess;
+
+/**
+ * Attack lookups for each piece type on bitboards.
+ * <p>
+ * Knight, king and pawn attacks only depend on the square, so each is a
+ * plain table with one bitboard per square. Rook and bishop attacks use
+ * magic bitboards: the blockers on a square's rays are multiplied by a
+ * per-square magic number and shifted down into an index into a table of
+ * precomputed attack sets. The magic numbers below map every blocker
+ * arrangement to a slot without harmful collisions; all of the tables are
+ * filled once when the class loads.
+ */
+public final class Attacks {
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = {
+            0xA080028098400120L, 0x00C0001009402000L, 0x010010200041000AL,
+            0x1080040800801000L, 0x2080080002040080L, 0x0B00040012080D00L,
+            0x0200010084080200L, 0x020000844C010022L, 0x0800802040008000L,
+            0x8141004000208100L, 0x1003002000410011L, 0x0009001000A10900L,
+            0x0200808008000400L, 0x0031000804008300L, 0x2144000802041001L,
+            0x0081001068820100L, 0x0080004000402000L, 0x0010004000200040L,
+            0x0010410020030810L, 0x1810004040080400L, 0x0008008004008008L,
+            0x0000080140100420L, 0x1001010100020004L, 0x400012000455088CL,
+            0x0080004040002010L, 0x1000400080802000L, 0x0003044500142000L,
+            0x0540240900100100L, 0x400C001101000800L, 0x0000200801044010L,
+            0x0408020400081001L, 0x2000090200088044L, 0x8000804004800028L,
+            0x0002010022004080L, 0x8802001086002241L, 0x0880082501001000L,
+            0x0000040082800800L, 0xA800040080800200L, 0x40A0300144008208L,
+            0x40088000C2800500L, 0x0800204001918000L, 0x5100410082020020L,
+            0x0C00100020008080L, 0x0810100009010020L, 0x280C080101110004L,
+            0x9060040002008080L, 0x0800281001340002L, 0x4008009C00420005L,
+            0x0840250880104100L, 0x0040004080200080L, 0x00100483B0200080L,
+            0x8044084200102200L, 0x0380040080080080L, 0x001C040002008080L,
+            0x0288022108300400L, 0x0000008054010200L, 0x0003084110218001L,
+            0x048140010822B083L, 0x2000120A40200101L, 0x0021210410000901L,
+            0x000200310824A002L, 0x5001009A28040005L, 0x801800B01102080CL,
+            0x20400407102080C2L
+    };
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = {
+            0x1070024888008500L, 0x009290020A164202L, 0x001010808D001000L,
+            0x10280A04A9300000L, 0x04045040040A4482L, 0x0000900421104002L,
+            0x0200841402422800L, 0x0002420080884004L, 0x0000840404B40C00L,
+            0x0C0010900CA28088L, 0x000A084809022003L, 0x1400041062030210L,
+            0x0021040420010080L, 0x00000A0190080420L, 0xA600840108090440L,
+            0x8180021100880420L, 0x0520002408460860L, 0x121800041000C60BL,
+            0x401004C200220020L, 0x1010400824004000L, 0x2144021200A21010L,
+            0x081200090100C207L, 0x00040A0880882880L, 0x0052440202208421L,
+            0x0408200140044141L, 0x00A9249008100400L, 0x02440100C0820081L,
+            0x0820104088004040L, 0x8050040000802100L, 0x009043000202A200L,
+            0x0054040424422210L, 0x1304090008288201L, 0x1010088A28200201L,
+            0x0A52100408020881L, 0x0800404041081200L, 0x4401020080080082L,
+            0x0118020400001100L, 0x8002020409020080L, 0x0008080120084100L,
+            0x1024C10209004201L, 0x0020A22060001110L, 0x0132011082010814L,
+            0x0400220030011200L, 0x0800804010400200L, 0x2100280304000110L,
+            0x80401800AD000020L, 0x0420020081304A01L, 0x0001224400400100L,
+            0x8300610420200000L, 0x9100490401604000L, 0x0960814A08904002L,
+            0x0800080020880000L, 0x0040106052540060L, 0x0100092008408404L,
+            0xA088421002020A88L, 0x82301040AA808081L, 0x0002022404024880L,
+            0x1200110880842060L, 0x0000040042209000L, 0x0000A22000A09828L,
+            0x000300C420020480L, 0x0000214820082222L, 0x0100410288020080L,
+            0x01280A00CA040900L
+    };
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        int[][] kingSteps = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+        int[][] whitePawnSteps = {{1, -1}, {1, 1}};
+        int[][] blackPawnSteps = {{-1, -1}, {-1, 1}};
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = stepAttacks(square, knightSteps);
+            KING_ATTACKS[square] = stepAttacks(square, kingSteps);
+            PAWN_ATTACKS[0][square] = stepAttacks(square, whitePawnSteps);
+            PAWN_ATTACKS[1][square] = stepAttacks(square, blackPawnSteps);
+        }
+
+        ROOK_TABLE = buildTable(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = buildTable(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                if (from == to) {
+                    continue;
+                }
+                long ends = Bitboards.bit(from) | Bitboards.bit(to);
+                if ((rookAttacks(from, 0L) & Bitboards.bit(to)) != 0) {
+                    BETWEEN[from][to] = rookAttacks(from, ends) & rookAttacks(to, ends);
+                    LINE[from][to] = (rookAttacks(from, 0L) & rookAttacks(to, 0L)) | ends;
+                } else if ((bishopAttacks(from, 0L) & Bitboards.bit(to)) != 0) {
+                    BETWEEN[from][to] = bishopAttacks(from, ends) & bishopAttacks(to, ends);
+                    LINE[from][to] = (bishopAttacks(from, 0L) & bishopAttacks(to, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * @return squares a knight on the square attacks
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * @return squares a king on the square attacks
+     */
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return squares a pawn of the given color on the square attacks
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * @param side 0 for white, 1 for black
+     * @return squares a pawn of that side on the square attacks
+     */
+    static long pawnAttacks(int side, int square) {
+        return PAWN_ATTACKS[side][square];
+    }
+
+    /**
+     * @return squares a rook on the square attacks, stopping at (and
+     * including) the first occupied square in each direction
+     */
+    public static long rookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_TABLE[ROOK_OFFSETS[square] + index];
+    }
+
+    /**
+     * @return squares a bishop on the square attacks, stopping at (and
+     * including) the first occupied square in each direction
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + index];
+    }
+
+    /**
+     * @return squares a queen on the square attacks
+     */
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared rank, file
+     * or diagonal, or nothing if they do not share one
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return every square of the rank, file or diagonal through both
+     * squares, or nothing if they do not share one
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    private static long stepAttacks(int square, int[][] steps) {
+        long attacks = 0L;
+        for (int[] step : steps) {
+            int row = Bitboards.row(square) + step[0];
+            int col = Bitboards.column(square) + step[1];
+            if (Bitboards.onBoard(row, col)) {
+                attacks |= Bitboards.bit(Bitboards.square(row, col));
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Walks each ray a square at a time. Only used to fill the magic tables
+     * and to check them.
+     */
+    static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        int row = Bitboards.row(square);
+        int col = Bitboards.column(square);
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (Bitboards.onBoard(r, c)) {
+                long bit = Bitboards.bit(Bitboards.square(r, c));
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    static long rookAttacksSlow(int square, long occupied) {
+        return slidingAttacks(square, occupied, ROOK_DIRECTIONS);
+    }
+
+    static long bishopAttacksSlow(int square, long occupied) {
+        return slidingAttacks(square, occupied, BISHOP_DIRECTIONS);
+    }
+
+    static long rookMask(int square) {
+        return ROOK_MASKS[square];
+    }
+
+    static long bishopMask(int square) {
+        return BISHOP_MASKS[square];
+    }
+
+    /**
+     * Squares whose occupancy can change a slider's attacks. The last square
+     * of each ray never matters, since it is attacked either way.
+     */
+    private static long relevantMask(int square, int[][] directions) {
+        long mask = 0L;
+        int row = Bitboards.row(square);
+        int col = Bitboards.column(square);
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (Bitboards.onBoard(r + direction[0], c + direction[1])) {
+                mask |= Bitboards.bit(Bitboards.square(r, c));
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long[] buildTable(int[][] directions, long[] masks, long[] magics, int[] shifts,
+                                     int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantMask(square, directions);
+            shifts[square] = 64 - Long.bitCount(masks[square]);
+            offsets[square] = size;
+            size += 1 << Long.bitCount(masks[square]);
+        }
+
+        long[] table = new long[size];
+        for (int square = 0; square < 64; square++) {
+            long mask = masks[square];
+            long occupied = 0L;
+            // visit every subset of the mask with the carry-rippler trick
+            do {
+                int index = (int) ((occupied * magics[square]) >>> shifts[square]);
+                table[offsets[square] + index] = slidingAttacks(square, occupied, directions);
+                occupied = (occupied - mask) & mask;
+            } while (occupied != 0);
+        }
+        return table;
+    }
+}
@@ -5,26 +5,88 @@ import java.util.Arrays;
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * Pieces are kept in twelve bitboards (one per color and piece type) plus
+ * color and total occupancy masks, with a 64 square mailbox alongside so
+ * {@link #getPiece} stays a single array read. A Zobrist key of the piece
+ * placement, a second key of the pawns alone, the square of each king and
+ * the material and piece-square totals of {@link PieceSquareTables} are
+ * updated as pieces are added, moved and removed.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessBoard {
-    ChessPiece[][] board = new ChessPiece[8][8];
+    static final int PIECE_KINDS = 12;
+
+    // bitboard offsets for each piece type, in PieceType order
+    static final int KING = 0;
+    static final int QUEEN = 1;
+    static final int BISHOP = 2;
+    static final int KNIGHT = 3;
+    static final int ROOK = 4;
+    static final int PAWN = 5;
+
+    /**
+     * Game phase of the starting position, see {@link #getPhase()}
+     */
+    public static final int MAX_PHASE = 24;
+
+    long[] pieces = new long[PIECE_KINDS];
+    long[] colors = new long[2];
+    long occupied;
+    ChessPiece[] squares = new ChessPiece[64];
+    long key;
+    int[] kingSquares = {-1, -1};
+    long pawnKey;
+    int midgame;
+    int endgame;
+    int phase;
 
     public ChessBoard() {
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; i < board[0].length; i++) {
-                board[i][j] = null;
-            }
-        }
     }
 
     public ChessBoard(ChessBoard other) {
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[0].length; j++) {
-                board[i][j] = other.getPiece(new ChessPosition(i + 1, j + 1));
-            }
-        }
+        System.arraycopy(other.pieces, 0, pieces, 0, PIECE_KINDS);
+        System.arraycopy(other.colors, 0, colors, 0, 2);
+        System.arraycopy(other.squares, 0, squares, 0, 64);
+        occupied = other.occupied;
+        key = other.key;
+        kingSquares[0] = other.kingSquares[0];
+        kingSquares[1] = other.kingSquares[1];
+        pawnKey = other.pawnKey;
+        midgame = other.midgame;
+        endgame = other.endgame;
+        phase = other.phase;
+    }
+
+    /**
+     * Builds a board from the piece placement field of a FEN position. A full
+     * FEN string is accepted too, in which case the other fields are ignored.
+     *
+     * @param fen the placement, such as "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR"
+     * @return a board holding those pieces
+     * @throws IllegalArgumentException if the placement is not valid FEN
+     */
+    public static ChessBoard fromFen(String fen) {
+        var board = new ChessBoard();
+        Fen.parsePlacement(fen.strip(), board);
+        return board;
+    }
+
+    /**
+     * @return the piece placement field of FEN for this board
+     */
+    public String toFen() {
+        var out = new StringBuilder(72);
+        Fen.writePlacement(this, out);
+        return out.toString();
+    }
+
+    /**
+     * @return the bitboard index used for a piece of the given color and type
+     */
+    static int index(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
     }
 
     /**
@@ -34,7 +96,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow() - 1][position.getColumn() - 1] = piece;
+        addPiece(Bitboards.square(position), piece);
     }
 
     /**
@@ -47,32 +109,45 @@ public class ChessBoard {
     public ChessPiece getPiece(ChessPosition position) {
         int row = position.getRow();
         int col = position.getColumn();
-        if (row < 9 && row > 0 && col < 9 && col > 0) {
-            return board[row - 1][col - 1];
+        if (Bitboards.onBoard(row, col)) {
+            return squares[Bitboards.square(row, col)];
         }
         return null;
     }
 
+    /**
+     * @return the piece on a square index (see {@link Bitboards}), or null if
+     * it is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return squares[square];
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; i < board[0].length; i++) {
-                board[i][j] = null;
-            }
-        }
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(colors, 0L);
+        Arrays.fill(squares, null);
+        occupied = 0L;
+        key = 0L;
+        Arrays.fill(kingSquares, -1);
+        pawnKey = 0L;
+        midgame = 0;
+        endgame = 0;
+        phase = 0;
 
         addBackRowHelper(ChessGame.TeamColor.WHITE);
         addBackRowHelper(ChessGame.TeamColor.BLACK);
 
-        for (int i = 0; i < board[1].length; i++) {
-            addPiece(new ChessPosition(2, i + 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        for (int i = 1; i < 9; i++) {
+            addPiece(ChessPosition.of(2, i), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
         }
 
-        for (int i = 0; i < board[6].length; i++) {
-            addPiece(new ChessPosition(7, i + 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        for (int i = 1; i < 9; i++) {
+            addPiece(ChessPosition.of(7, i), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
     }
 
@@ -85,24 +160,208 @@ public class ChessBoard {
             row = 8;
         }
 
-        addPiece(new ChessPosition(row, 1), new ChessPiece(color, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(row, 2), new ChessPiece(color, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(row, 3), new ChessPiece(color, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(row, 4), new ChessPiece(color, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(row, 5), new ChessPiece(color, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(row, 6), new ChessPiece(color, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(row, 7), new ChessPiece(color, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(row, 8), new ChessPiece(color, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(row, 1), ChessPiece.of(color, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(row, 2), ChessPiece.of(color, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(row, 3), ChessPiece.of(color, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(row, 4), ChessPiece.of(color, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(row, 5), ChessPiece.of(color, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(row, 6), ChessPiece.of(color, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(row, 7), ChessPiece.of(color, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(row, 8), ChessPiece.of(color, ChessPiece.PieceType.ROOK));
+    }
+
+    /**
+     * Puts a piece on a square index, or empties it if the piece is null
+     */
+    void addPiece(int square, ChessPiece piece) {
+        clearSquare(square);
+        if (piece != null) {
+            setSquare(square, piece);
+        }
     }
 
     public void removePiece(ChessPosition target){
-        board[target.getRow() - 1][target.getColumn() - 1] = null;
+        clearSquare(Bitboards.square(target));
     }
 
     public void movePiece(ChessPosition start, ChessPosition end) {
-        ChessPiece piece = this.getPiece(start);
-        this.addPiece(end, piece);
-        this.removePiece(start);
+        movePiece(Bitboards.square(start), Bitboards.square(end));
+    }
+
+    /**
+     * Moves whatever is on one square index to another, capturing anything
+     * already there
+     */
+    void movePiece(int from, int to) {
+        ChessPiece piece = squares[from];
+        clearSquare(to);
+        if (piece != null) {
+            clearSquare(from);
+            setSquare(to, piece);
+        }
+    }
+
+    /**
+     * @return the squares holding pieces of the given color and type
+     */
+    public long getBitboard(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[index(color, type)];
+    }
+
+    /**
+     * @return the squares holding any piece of the given color
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return colors[color.ordinal()];
+    }
+
+    /**
+     * @return the squares holding any piece
+     */
+    public long getOccupancy() {
+        return occupied;
+    }
+
+    /**
+     * @return where the king of the given color stands, or null if it has
+     * no king on the board
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        int square = kingSquares[color.ordinal()];
+        if (square < 0) {
+            return null;
+        }
+        return ChessPosition.of(square);
+    }
+
+    /**
+     * @return the square index of the given color's king, or -1 if it has none
+     */
+    int kingSquare(ChessGame.TeamColor color) {
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * @return the Zobrist key of the piece placement, without side to move
+     * or castling rights
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * @return the Zobrist key of the pawns alone, which changes far less
+     * often than the full key and so suits caching pawn structure
+     */
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * @return white's material and piece-square score minus black's, in
+     * centipawns, valued for the middlegame
+     */
+    public int getMidgameScore() {
+        return midgame;
+    }
+
+    /**
+     * @return white's material and piece-square score minus black's, in
+     * centipawns, valued for the endgame
+     */
+    public int getEndgameScore() {
+        return endgame;
+    }
+
+    /**
+     * Measures how much of the middlegame is left from the pieces on the
+     * board, counting 4 for a queen, 2 for a rook and 1 for a bishop or
+     * knight. Evaluations blend the middlegame and endgame scores by it.
+     *
+     * @return the phase, {@link #MAX_PHASE} for a full set of pieces and 0
+     * once only kings and pawns remain; promotions can push it above the
+     * maximum
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Finds every piece of a color that attacks a square, with sliders
+     * blocked by the given occupancy
+     *
+     * @return the squares of the attacking pieces
+     */
+    long attackersTo(int square, ChessGame.TeamColor attacker, long occupied) {
+        int side = attacker.ordinal();
+        int base = side * 6;
+        long queens = pieces[base + QUEEN];
+        return (Attacks.pawnAttacks(side ^ 1, square) & pieces[base + PAWN])
+                | (Attacks.knightAttacks(square) & pieces[base + KNIGHT])
+                | (Attacks.kingAttacks(square) & pieces[base + KING])
+                | (Attacks.bishopAttacks(square, occupied) & (pieces[base + BISHOP] | queens))
+                | (Attacks.rookAttacks(square, occupied) & (pieces[base + ROOK] | queens));
+    }
+
+    /**
+     * Checks whether any piece of a color attacks a square. Sliders are
+     * blocked by the given occupancy rather than the board's, so callers can
+     * look through a piece that is about to move.
+     *
+     * @return true if the square is attacked by the attacker's pieces
+     */
+    boolean isAttacked(int square, ChessGame.TeamColor attacker, long occupied) {
+        int side = attacker.ordinal();
+        int base = side * 6;
+        long queens = pieces[base + QUEEN];
+        // a defending pawn on the square would attack exactly where enemy pawns attack it from
+        return (Attacks.pawnAttacks(side ^ 1, square) & pieces[base + PAWN]) != 0
+                || (Attacks.knightAttacks(square) & pieces[base + KNIGHT]) != 0
+                || (Attacks.kingAttacks(square) & pieces[base + KING]) != 0
+                || (Attacks.bishopAttacks(square, occupied) & (pieces[base + BISHOP] | queens)) != 0
+                || (Attacks.rookAttacks(square, occupied) & (pieces[base + ROOK] | queens)) != 0;
+    }
+
+    private void setSquare(int square, ChessPiece piece) {
+        long bit = Bitboards.bit(square);
+        int index = index(piece.getTeamColor(), piece.getPieceType());
+        pieces[index] |= bit;
+        colors[piece.getTeamColor().ordinal()] |= bit;
+        occupied |= bit;
+        squares[square] = piece;
+        key ^= Zobrist.PIECE_SQUARE[index][square];
+        midgame += PieceSquareTables.MIDGAME[index][square];
+        endgame += PieceSquareTables.ENDGAME[index][square];
+        phase += PieceSquareTables.PHASE[index];
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            kingSquares[piece.getTeamColor().ordinal()] = square;
+        } else if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            pawnKey ^= Zobrist.PIECE_SQUARE[index][square];
+        }
+    }
+
+    private void clearSquare(int square) {
+        ChessPiece piece = squares[square];
+        if (piece == null) {
+            return;
+        }
+        long mask = ~Bitboards.bit(square);
+        int index = index(piece.getTeamColor(), piece.getPieceType());
+        pieces[index] &= mask;
+        colors[piece.getTeamColor().ordinal()] &= mask;
+        occupied &= mask;
+        squares[square] = null;
+        key ^= Zobrist.PIECE_SQUARE[index][square];
+        midgame -= PieceSquareTables.MIDGAME[index][square];
+        endgame -= PieceSquareTables.ENDGAME[index][square];
+        phase -= PieceSquareTables.PHASE[index];
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            pawnKey ^= Zobrist.PIECE_SQUARE[index][square];
+        } else if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            // a hand-built board may hold a second king, so fall back to it
+            long kings = pieces[index];
+            kingSquares[piece.getTeamColor().ordinal()] = kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+        }
     }
 
     @Override
@@ -110,25 +369,11 @@ public class ChessBoard {
         if (!(o instanceof ChessBoard that)) {
             return false;
         }
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                if (board[i][j] != null && that.board[i][j] != null) {
-                    if(board[i][j].getPieceType() != that.board[i][j].getPieceType()) {
-                        return false;
-                    }
-                } else if (board[i][j] == null && that.board[i][j] != null) {
-                    return false;
-                } else if (board[i][j] != null && that.board[i][j] == null) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        return Arrays.equals(pieces, that.pieces);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(key);
     }
 }
@@ -0,0 +1,133 @@
+package chess;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link ChessBoard} as the piece placement field of FEN, such as
+ * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR".
+ * <p>
+ * Boards stored before this adapter were written out field by field, with
+ * the pieces either in an 8x8 array under "board" or in 64 squares under
+ * "squares" beside the bitboards. Both are still read. Only the pieces are
+ * taken from them, and the board works out everything else again as they
+ * are placed.
+ */
+public final class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+    @Override
+    public void write(JsonWriter out, ChessBoard board) throws IOException {
+        if (board == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(board.toFen());
+    }
+
+    @Override
+    public ChessBoard read(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case NULL -> {
+                in.nextNull();
+                yield null;
+            }
+            case STRING -> {
+                try {
+                    yield ChessBoard.fromFen(in.nextString());
+                } catch (IllegalArgumentException e) {
+                    throw new JsonSyntaxException(e.getMessage(), e);
+                }
+            }
+            default -> readFields(in);
+        };
+    }
+
+    /**
+     * Reads a board stored field by field, skipping everything but the pieces
+     */
+    private static ChessBoard readFields(JsonReader in) throws IOException {
+        var board = new ChessBoard();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "board" -> readRows(in, board);
+                case "squares" -> readSquares(in, board);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return board;
+    }
+
+    private static void readRows(JsonReader in, ChessBoard board) throws IOException {
+        in.beginArray();
+        for (int row = 1; in.hasNext(); row++) {
+            in.beginArray();
+            for (int col = 1; in.hasNext(); col++) {
+                ChessPiece piece = readPiece(in);
+                if (row > 8 || col > 8) {
+                    throw new JsonSyntaxException("board is larger than 8x8 at " + in.getPath());
+                }
+                if (piece != null) {
+                    board.addPiece(Bitboards.square(row, col), piece);
+                }
+            }
+            in.endArray();
+        }
+        in.endArray();
+    }
+
+    private static void readSquares(JsonReader in, ChessBoard board) throws IOException {
+        in.beginArray();
+        for (int square = 0; in.hasNext(); square++) {
+            ChessPiece piece = readPiece(in);
+            if (square >= 64) {
+                throw new JsonSyntaxException("board has more than 64 squares at " + in.getPath());
+            }
+            if (piece != null) {
+                board.addPiece(square, piece);
+            }
+        }
+        in.endArray();
+    }
+
+    private static ChessPiece readPiece(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessGame.TeamColor color = null;
+        ChessPiece.PieceType type = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "color" -> color = readEnum(in, ChessGame.TeamColor.class);
+                case "type" -> type = readEnum(in, ChessPiece.PieceType.class);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (color == null || type == null) {
+            throw new JsonSyntaxException("piece needs a color and a type at " + in.getPath());
+        }
+        return ChessPiece.of(color, type);
+    }
+
+    static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> type) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String name = in.nextString();
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("unknown " + type.getSimpleName() + " \"" + name + "\" at "
+                    + in.getPath(), e);
+        }
+    }
+}
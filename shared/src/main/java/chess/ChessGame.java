@@ -1,5 +1,6 @@
 package chess;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Objects;
@@ -9,20 +10,84 @@ import chess.ChessPiece.PieceType;
 /**
  * For a class that can manage a chess game, making moves on a board
  * <p>
+ * The query methods ({@link #validMoves}, {@link #teamValidMoves},
+ * {@link #isInCheck}, {@link #isInCheckmate}, {@link #isInStalemate},
+ * {@link #hasAnyLegalMove} and {@link #getGameStatus}) only read the
+ * position and never change it, even for a moment, so any number of threads
+ * may query a game at once as long as none of them is making a move.
+ * Readers that need to keep going while moves are made should take a
+ * {@link #snapshot()} instead.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessGame {
+    public static final int WHITE_KINGSIDE = 0b0001;
+    public static final int WHITE_QUEENSIDE = 0b0010;
+    public static final int BLACK_KINGSIDE = 0b0100;
+    public static final int BLACK_QUEENSIDE = 0b1000;
+    public static final int ALL_CASTLING = 0b1111;
+
+    /**
+     * Castling rights that survive a move touching each square. Moving the
+     * king or a rook off its home square, or capturing on a rook's home
+     * square, gives up the matching rights.
+     */
+    private static final int[] CASTLING_KEPT = new int[64];
+
+    /**
+     * How many earlier position keys are kept. Repetitions can only reach
+     * back to the last capture or pawn move, and the fifty-move rule ends the
+     * game 100 plies after one, so older keys are never needed.
+     */
+    private static final int KEY_HISTORY_SIZE = 128;
+
+    /**
+     * Plies without a capture or pawn move after which the game is drawn
+     */
+    private static final int FIFTY_MOVE_PLIES = 100;
+
+    static {
+        Arrays.fill(CASTLING_KEPT, ALL_CASTLING);
+        CASTLING_KEPT[Bitboards.square(1, 1)] &= ~WHITE_QUEENSIDE;
+        CASTLING_KEPT[Bitboards.square(1, 5)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_KEPT[Bitboards.square(1, 8)] &= ~WHITE_KINGSIDE;
+        CASTLING_KEPT[Bitboards.square(8, 1)] &= ~BLACK_QUEENSIDE;
+        CASTLING_KEPT[Bitboards.square(8, 5)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_KEPT[Bitboards.square(8, 8)] &= ~BLACK_KINGSIDE;
+    }
+
     private ChessBoard board;
     private TeamColor currentTurn;
-    private boolean whiteCanCastle = false;
-    private boolean blackCanCastle = false;
+    private int castlingRights = 0;
+    private int enPassantSquare = -1;
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+    private long[] keyHistory = new long[KEY_HISTORY_SIZE];
+    private int keyCount = 0;
+    private transient Undo[] history = new Undo[16];
+    private transient int ply = 0;
+
+    /**
+     * What {@link #unmakeMove()} needs to put the game back the way it was
+     * before a move. Records are kept in a stack and reused between moves.
+     */
+    private static final class Undo {
+        int move;
+        ChessPiece moved;
+        ChessPiece captured;
+        int capturedSquare;
+        TeamColor turn;
+        int castlingRights;
+        int enPassantSquare;
+        int halfmoveClock;
+        int fullmoveNumber;
+    }
 
     public ChessGame() {
         board = new ChessBoard();
         currentTurn = TeamColor.WHITE;
-        whiteCanCastle = true;
-        blackCanCastle = true;
+        castlingRights = ALL_CASTLING;
 
         board.resetBoard();
     }
@@ -30,8 +95,52 @@ public class ChessGame {
     public ChessGame(ChessGame other) {
         this.board = new ChessBoard(other.board);
         this.currentTurn = other.getTeamTurn();
-        this.whiteCanCastle = other.whiteCanCastle;
-        this.blackCanCastle = other.blackCanCastle;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.halfmoveClock = other.halfmoveClock;
+        this.fullmoveNumber = other.fullmoveNumber;
+        this.keyHistory = other.keyHistory.clone();
+        this.keyCount = other.keyCount;
+    }
+
+    /**
+     * Builds a game at a position given field by field, as FEN has them
+     *
+     * @param board           the pieces, which the game takes over
+     * @param turn            the side to move
+     * @param castlingRights  any of {@link #WHITE_KINGSIDE}, {@link #WHITE_QUEENSIDE},
+     *                        {@link #BLACK_KINGSIDE} and {@link #BLACK_QUEENSIDE}
+     * @param enPassantSquare the square a pawn just skipped over, or -1
+     * @param halfmoveClock   plies since the last capture or pawn move
+     * @param fullmoveNumber  the move number, starting at 1
+     */
+    public ChessGame(ChessBoard board, TeamColor turn, int castlingRights, int enPassantSquare,
+                     int halfmoveClock, int fullmoveNumber) {
+        this.board = board;
+        this.currentTurn = turn;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Builds a game from a position in Forsyth-Edwards Notation
+     *
+     * @param fen the position, such as
+     *            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"
+     * @return a game at that position
+     * @throws IllegalArgumentException if the text is not valid FEN
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.parseGame(fen);
+    }
+
+    /**
+     * @return the current position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        return Fen.write(this);
     }
 
     /**
@@ -50,20 +159,91 @@ public class ChessGame {
         currentTurn = team;
     }
 
+    /**
+     * @return the castling rights still held, as a mask of
+     * {@link #WHITE_KINGSIDE}, {@link #WHITE_QUEENSIDE},
+     * {@link #BLACK_KINGSIDE} and {@link #BLACK_QUEENSIDE}
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return the square a pawn can be captured on en passant this turn, or
+     * null if there is none
+     */
+    public ChessPosition getEnPassantPosition() {
+        if (enPassantSquare < 0) {
+            return null;
+        }
+        return ChessPosition.of(enPassantSquare);
+    }
+
+    /**
+     * @return the square index a pawn can be captured on en passant this
+     * turn, or -1 if there is none
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * @return plies since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the move number, starting at 1 and counting up after black moves
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof ChessGame chessGame)) {
             return false;
         }
-        return whiteCanCastle == chessGame.whiteCanCastle &&
-        blackCanCastle == chessGame.blackCanCastle &&
+        return castlingRights == chessGame.castlingRights &&
+        enPassantSquare == chessGame.enPassantSquare &&
         Objects.equals(getBoard(), chessGame.getBoard()) &&
         currentTurn == chessGame.currentTurn;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getBoard(), currentTurn, whiteCanCastle, blackCanCastle);
+        return Long.hashCode(positionKey());
+    }
+
+    /**
+     * Copies the current position into a view that can never change, for
+     * handing to readers on other threads
+     *
+     * @return a snapshot of the game as it is now
+     */
+    public GameSnapshot snapshot() {
+        return new GameSnapshot(this);
+    }
+
+    /**
+     * Gets a 64-bit Zobrist key for the current position, covering the pieces,
+     * the side to move, castling rights and the en passant file. Equal positions always have equal
+     * keys, and the key is kept up to date as moves are made, so reading it
+     * costs a few XORs rather than a pass over the board.
+     *
+     * @return the position key
+     */
+    public long positionKey() {
+        long key = board.getKey() ^ Zobrist.CASTLING[castlingRights];
+        if (enPassantSquare >= 0) {
+            key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+        }
+        if (currentTurn == TeamColor.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        return key;
     }
 
     /**
@@ -74,6 +254,18 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Where the game stands for the side to move
+     */
+    public enum GameStatus {
+        IN_PROGRESS,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        THREEFOLD_REPETITION,
+        FIFTY_MOVE_RULE
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -83,38 +275,71 @@ public class ChessGame {
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
         ChessPiece piece = board.getPiece(startPosition);
-        Collection<ChessMove> logicalMoves = piece.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new HashSet<>();
-        for(ChessMove move : logicalMoves) {
-            if (piece.getTeamColor() == currentTurn) {
-                if (simulateMove(move)) {
-                    validMoves.add(move);
-                }
-            } else {
-                setTeamTurn(piece.getTeamColor());
-                if (simulateMove(move)) {
-                    validMoves.add(move);
-                }
-                if (piece.getTeamColor() == TeamColor.WHITE) {
-                    currentTurn = TeamColor.BLACK;
-                } else {
-                    currentTurn = TeamColor.WHITE;
-                }
-            }
+        if (piece == null) {
+            return null;
         }
+        var moves = new MoveList();
+        MoveGenerator.generate(this, piece.getTeamColor(), Bitboards.bit(Bitboards.square(startPosition)), moves);
+        Collection<ChessMove> validMoves = new HashSet<>();
+        moves.addTo(validMoves);
         return validMoves;
     }
 
-    private boolean simulateMove(ChessMove move) {
-        ChessGame future = new ChessGame(this);
-        try {
-            future.makeMove(move);
-            return true;
-        } catch (InvalidMoveException e) {
-            return false;
+    /**
+     * Fills a reusable list with the valid moves for a piece at the given
+     * location, packed as described in {@link PackedMove}
+     *
+     * @param startPosition the piece to get valid moves for
+     * @param moves         cleared, then filled with the moves; left empty if
+     *                      there is no piece at startPosition
+     */
+    public void validMoves(ChessPosition startPosition, MoveList moves) {
+        moves.clear();
+        ChessPiece piece = board.getPiece(startPosition);
+        if (piece != null) {
+            MoveGenerator.generate(this, piece.getTeamColor(), Bitboards.bit(Bitboards.square(startPosition)),
+                    moves);
         }
     }
 
+    /**
+     * Gets every valid move for a team
+     *
+     * @param teamColor the team to get valid moves for
+     * @return Set of valid moves for every piece of that team
+     */
+    public Collection<ChessMove> teamValidMoves(TeamColor teamColor) {
+        var moves = new MoveList();
+        MoveGenerator.generate(this, teamColor, -1L, moves);
+        Collection<ChessMove> teamMoves = new HashSet<>();
+        moves.addTo(teamMoves);
+        return teamMoves;
+    }
+
+    /**
+     * Fills a reusable list with every valid move for a team, packed as
+     * described in {@link PackedMove}
+     *
+     * @param teamColor the team to get valid moves for
+     * @param moves     cleared, then filled with the moves
+     */
+    public void teamValidMoves(TeamColor teamColor, MoveList moves) {
+        moves.clear();
+        MoveGenerator.generate(this, teamColor, -1L, moves);
+    }
+
+    /**
+     * Fills a reusable list with only the captures and promotions a team can
+     * make, for searches that settle tactics before judging a position
+     *
+     * @param teamColor the team to get moves for
+     * @param moves     cleared, then filled with the moves
+     */
+    public void teamTacticalMoves(TeamColor teamColor, MoveList moves) {
+        moves.clear();
+        MoveGenerator.generateTactical(this, teamColor, moves);
+    }
+
     /**
      * Makes a move in a chess game
      *
@@ -123,7 +348,6 @@ public class ChessGame {
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
         ChessPosition start = move.getStartPosition();
-        ChessPosition end = move.getEndPosition();
         ChessPiece piece = board.getPiece(start);
 
         if (piece == null) {
@@ -134,241 +358,165 @@ public class ChessGame {
             throw new InvalidMoveException("move is out of turn");
         }
 
-        Collection<ChessMove> potentialMoves = piece.pieceMoves(board, start);
-        if (!potentialMoves.contains(move)) {
-            throw new InvalidMoveException("move is invalid");
-        }
-
-        board.movePiece(start, end);
-        if (move.getPromotionPiece() != null) {
-            board.addPiece(end, new ChessPiece(currentTurn, move.getPromotionPiece()));
-        }
-
-        if (isInCheck(piece.getTeamColor())) {
-            throw new InvalidMoveException("move results in check");
+        if (move.getPromotionPiece() != null && !PackedMove.isPromotion(move.getPromotionPiece())) {
+            throw new InvalidMoveException("cannot promote to " + move.getPromotionPiece());
         }
-
-        if(piece.getPieceType() == PieceType.ROOK || piece.getPieceType() == PieceType.KING) {
-            if(currentTurn == TeamColor.WHITE) {
-                whiteCanCastle = false;
-            } else {
-                blackCanCastle = false;
+        int packed = PackedMove.of(move);
+        var legalMoves = new MoveList(32);
+        MoveGenerator.generate(this, currentTurn, Bitboards.bit(Bitboards.square(start)), legalMoves);
+        if (!legalMoves.contains(packed)) {
+            if (piece.pieceMoves(board, start).contains(move)) {
+                throw new InvalidMoveException("move results in check");
             }
+            throw new InvalidMoveException("move is invalid");
         }
 
-        if(currentTurn == TeamColor.WHITE) {
-            currentTurn = TeamColor.BLACK;
-        } else {
-            currentTurn = TeamColor.WHITE;
-        }
+        applyMove(packed);
     }
 
-    private boolean[] checkSquare(TeamColor teamColor, ChessBoard board, int y, int x, boolean diagonals) {
-        boolean[] results = {false, false};
-        ChessPiece potentialAttacker = board.getPiece(new ChessPosition(x, y));
-        if (potentialAttacker != null) {
-            if (potentialAttacker.getTeamColor() != teamColor) {
-                PieceType attackerType = potentialAttacker.getPieceType();
-                if (attackerType == PieceType.QUEEN) {
-                    results[0] = true;
-                } else if (diagonals && attackerType == PieceType.BISHOP) {
-                    results[0] = true;
-                } else {
-                    if (attackerType == PieceType.ROOK) {
-                        results[0] = true;
-                    }
-                }
-            } else {
-                results[1] = true;
-            }
-        }
-        return results;
+    /**
+     * Makes a packed move without checking it. Only pass moves generated
+     * for the current position by {@link #teamValidMoves(TeamColor, MoveList)}
+     * or {@link #validMoves(ChessPosition, MoveList)}; anything else can
+     * leave the game in a state no legal sequence of moves reaches.
+     *
+     * @param move the packed move to play
+     */
+    public void makeMove(int move) {
+        applyMove(move);
     }
 
     /**
-     * Determines if the given team is in check
+     * Takes back the last move made on this game, restoring the board, turn,
+     * castling rights, en passant square and move counters to what they were
+     * before it
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @throws IllegalStateException if there is no move to take back
      */
-    public boolean isInCheck(TeamColor teamColor) {
-        /* PSEUDO CODE
-        idea: check each movement type from the king's square for attackers
-        1. check the two diagonals for opposing pawns / beyond for bishops & queens
-        2. check the rows for rooks & queens
-        3. check the Ls for knights
-
-        this can basically reuse the movement logic, but modify it to return TRUE if an opposing piece is found
-         */
-        boolean check = false;
-
-        ChessPosition kingLocation = getKingPosition(teamColor);
-        if (kingLocation == null) {
-            return true; // this means the simulator attacked the other king successfully
+    public void unmakeMove() {
+        if (ply == 0) {
+            throw new IllegalStateException("no move to take back");
         }
-
-        int kingX = kingLocation.getColumn();
-        int kingY = kingLocation.getRow();
-        
-        int direction = 1;
-        if (teamColor == ChessGame.TeamColor.BLACK) {
-            direction = -1;
+        Undo undo = history[--ply];
+        keyCount--;
+        int from = PackedMove.from(undo.move);
+        int to = PackedMove.to(undo.move);
+        board.addPiece(from, undo.moved);
+        board.addPiece(to, null);
+        board.addPiece(undo.capturedSquare, undo.captured);
+        if (undo.moved.getPieceType() == PieceType.KING && Math.abs(to - from) == 2) {
+            board.movePiece((from + to) / 2, to > from ? from + 3 : from - 4);
         }
+        currentTurn = undo.turn;
+        castlingRights = undo.castlingRights;
+        enPassantSquare = undo.enPassantSquare;
+        halfmoveClock = undo.halfmoveClock;
+        fullmoveNumber = undo.fullmoveNumber;
+        undo.moved = null;
+        undo.captured = null;
+    }
 
-        // check for pawns
-        check = isInCheckByPawns(teamColor, check, kingX, kingY, direction);
-
-        // check for kings
-        check = isInCheckByOpposingKing(teamColor, check, kingX, kingY);
-
-        // check for distant pieces
-        check = isInCheckByLongRangePieces(teamColor, check, kingX, kingY);
-        
-        // check for knights
-        check = isInCheckByKnights(teamColor, check, kingX, kingY);
-
-        return check;
-    }
-
-    private boolean isInCheckByKnights(TeamColor teamColor, boolean check, int kingX, int kingY) {
-        int[][] potentialKnights = {
-                        {kingX + 2, kingY + 1},
-                        {kingX + 2, kingY - 1},
-                        {kingX - 2, kingY + 1},
-                        {kingX - 2, kingY - 1},
-                        {kingX + 1, kingY + 2},
-                        {kingX + 1, kingY - 2},
-                        {kingX - 1, kingY + 2},
-                        {kingX - 1, kingY - 2}
-                };
-        
-        for (int[] knight : potentialKnights) {
-            ChessPiece potential = board.getPiece(new ChessPosition(knight[1], knight[0]));
-            if (potential != null && potential.getTeamColor() != teamColor && potential.getPieceType() == ChessPiece.PieceType.KNIGHT){
-                check = true;
-            }
+    /**
+     * Moves a piece in place without any legality checks, pushing an undo
+     * record so {@link #unmakeMove()} can restore the previous position. A
+     * king stepping two squares castles, and a pawn moving onto the en
+     * passant square captures the pawn beside it.
+     */
+    private void applyMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        PieceType promotion = PackedMove.promotion(move);
+        ChessPiece piece = board.getPiece(from);
+        boolean isPawn = piece.getPieceType() == PieceType.PAWN;
+        int capturedSquare = to;
+        if (isPawn && to == enPassantSquare) {
+            capturedSquare = piece.getTeamColor() == TeamColor.WHITE ? to - 8 : to + 8;
+        }
+        ChessPiece captured = board.getPiece(capturedSquare);
+
+        keyHistory[keyCount++ & (KEY_HISTORY_SIZE - 1)] = positionKey();
+        Undo undo = pushUndo();
+        undo.move = move;
+        undo.moved = piece;
+        undo.captured = captured;
+        undo.capturedSquare = capturedSquare;
+        undo.turn = currentTurn;
+        undo.castlingRights = castlingRights;
+        undo.enPassantSquare = enPassantSquare;
+        undo.halfmoveClock = halfmoveClock;
+        undo.fullmoveNumber = fullmoveNumber;
+
+        board.addPiece(capturedSquare, null);
+        board.movePiece(from, to);
+        if (promotion != null) {
+            board.addPiece(to, ChessPiece.of(piece.getTeamColor(), promotion));
+        } else if (piece.getPieceType() == PieceType.KING && Math.abs(to - from) == 2) {
+            board.movePiece(to > from ? from + 3 : from - 4, (from + to) / 2);
         }
-        return check;
-    }
-
-    private boolean isInCheckByLongRangePieces(TeamColor teamColor, boolean check, int kingX, int kingY) {
-        boolean upLeftBlocked = false;
-        boolean upRightBlocked = false;
-        boolean downLeftBlocked = false;
-        boolean downRightBlocked = false;
-
-        boolean upBlocked = false;
-        boolean downBlocked = false;
-        boolean leftBlocked = false;
-        boolean rightBlocked = false;
-
-        for (int i = 1; i < 9 && !check; i++) {
-            // check for bishops & queens on the diagonal
-            if (i + kingX < 9 && i + kingY < 9 && !upRightBlocked) {
-                boolean[] results = checkSquare(teamColor, getBoard(), i + kingX, i+kingY, true);
-                check = results[0];
-                upRightBlocked = results[1];
-            }
-
-            if (i + kingX < 9 && kingY - i > 0 && !check && !upLeftBlocked) {
-                boolean[] results = checkSquare(teamColor, getBoard(), i + kingX, kingY - i, true);
-                check = results[0];
-                upLeftBlocked = results[1];
-            }
-
-            if (kingX - i > 0 && i + kingY < 9 && !check && !downRightBlocked) {
-                boolean[] results = checkSquare(teamColor, getBoard(), kingX - i, i + kingY, true);
-                check = results[0];
-                downRightBlocked = results[1];
-            }
-
-            if (kingX - i > 0 && kingY - i > 0 && !check && !downLeftBlocked) {
-                boolean[] results = checkSquare(teamColor, getBoard(), kingX - i, kingY - i, true);
-                check = results[0];
-                downLeftBlocked = results[1];
-            }
-
-            // check for straight-line attacks
-            if (i + kingX < 9 && !check && !upBlocked) {
-                boolean[] results = checkSquare(teamColor, getBoard(), i + kingX, kingY, false);
-                check = results[0];
-                upBlocked = results[1];
-            }
-
-            if (kingX - i > 0 && !check && !downBlocked) {
-                boolean[] results = checkSquare(teamColor, getBoard(), kingX - i, kingY, false);
-                check = results[0];
-                downBlocked = results[1];
-            }
-
-            if (i + kingY < 9 && !check && !rightBlocked) {
-                boolean[] results = checkSquare(teamColor, getBoard(), kingX, kingY + i, false);
-                check = results[0];
-                rightBlocked = results[1];
-            }
 
-            if (kingY - i > 0 && !check && !leftBlocked) {
-                boolean[] results = checkSquare(teamColor, getBoard(), kingX, kingY - i, false);
-                check = results[0];
-                leftBlocked = results[1];
+        TeamColor opponent = piece.getTeamColor() == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        castlingRights &= CASTLING_KEPT[from] & CASTLING_KEPT[to];
+        enPassantSquare = -1;
+        if (isPawn) {
+            halfmoveClock = 0;
+            if (Math.abs(to - from) == 16 && canBeTakenEnPassant(to, opponent)) {
+                enPassantSquare = (from + to) / 2;
             }
+        } else if (captured != null) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
         }
-        return check;
-    }
-
-    private boolean isInCheckByOpposingKing(TeamColor teamColor, boolean check, int kingX, int kingY) {
-        for (int i = -1; i < 2 && !check && kingX + i < 9 && kingX + i > 0; i++) {
-            for (int j = -1; j < 2 && !check && kingY + j < 9 && kingY + j > 0; j++) {
-                ChessPiece potentialAttacker = board.getPiece(new ChessPosition(kingY + i, kingX + j));
-                if (potentialAttacker != null) {
-                    PieceType attackerType = potentialAttacker.getPieceType();
-                    if (attackerType == PieceType.KING && potentialAttacker.getTeamColor() != teamColor) {
-                        check = true;
-                    }
-                }
-            }
+        if (piece.getTeamColor() == TeamColor.BLACK) {
+            fullmoveNumber++;
         }
 
-        return check;
+        currentTurn = opponent;
+    }
+
+    /**
+     * Only pawns that an enemy pawn stands beside get an en passant square,
+     * so positions that differ in nothing else keep the same key
+     */
+    private boolean canBeTakenEnPassant(int pawnSquare, TeamColor opponent) {
+        long pawn = Bitboards.bit(pawnSquare);
+        long beside = ((pawn << 1) & ~Bitboards.FILE_A) | ((pawn >>> 1) & ~Bitboards.FILE_H);
+        return (board.getBitboard(opponent, PieceType.PAWN) & beside) != 0;
     }
 
-    private boolean isInCheckByPawns(TeamColor teamColor, boolean check, int kingX, int kingY, int direction) {
-        ChessPosition rightPawnAttack = new ChessPosition(kingY + direction, kingX + 1);
-        ChessPosition leftPawnAttack = new ChessPosition(kingY + direction, kingX - 1);
-        ChessPiece potentialRightPawn = board.getPiece(rightPawnAttack);
-        ChessPiece potentialLeftPawn = board.getPiece(leftPawnAttack);
-        if (potentialRightPawn != null &&
-            potentialRightPawn.getTeamColor() != teamColor &&
-            potentialRightPawn.getPieceType() == ChessPiece.PieceType.PAWN){
-            check = true;
+    private Undo pushUndo() {
+        if (ply == history.length) {
+            history = Arrays.copyOf(history, ply * 2);
         }
-        if (!check &&
-            potentialLeftPawn != null &&
-            potentialLeftPawn.getTeamColor() != teamColor &&
-            potentialLeftPawn.getPieceType() == ChessPiece.PieceType.PAWN){
-            check = true;
+        Undo undo = history[ply];
+        if (undo == null) {
+            undo = new Undo();
+            history[ply] = undo;
         }
-        return check;
-    }
-
-    private ChessPosition getKingPosition(TeamColor teamColor) {
-        ChessPosition kingPosition = null;
-        boolean kingFound = false;
-        for(int i = 1; i < 9 && !kingFound; i++) {
-            for(int j = 1; j < 9 && !kingFound; j++) {
-                ChessPosition potentialPosition = new ChessPosition(i, j);
-                ChessPiece potentialPiece = board.getPiece(potentialPosition);
-                boolean isCorrectKing = potentialPiece != null &&
-                                        potentialPiece.getTeamColor() == teamColor &&
-                                        potentialPiece.getPieceType() == ChessPiece.PieceType.KING;
-                if (isCorrectKing) {
-                    kingPosition = potentialPosition;
-                    kingFound = true;
-                }
-            }
+        ply++;
+        return undo;
+    }
+
+    /**
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
+    public boolean isInCheck(TeamColor teamColor) {
+        /* PSEUDO CODE
+        idea: the board tracks the king's square, so look up every attack pattern from there
+        1. the pawn captures of our own color show where enemy pawns attack from
+        2. the knight and king tables show where enemy knights and kings attack from
+        3. rook and bishop attacks from the king show where enemy sliders attack from
+         */
+        int kingSquare = board.kingSquare(teamColor);
+        if (kingSquare < 0) {
+            return true; // a missing king counts as captured, so in check; MoveGenerator gives such a side no moves
         }
 
-        return kingPosition;
+        TeamColor opponent = teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        return board.isAttacked(kingSquare, opponent, board.getOccupancy());
     }
 
     /**
@@ -379,28 +527,9 @@ public class ChessGame {
      */
     public boolean isInCheckmate(TeamColor teamColor) {
         /* PSEUDO CODE
-        idea: reuse the isInCheck on each square around the king
+        idea: in check with no legal move left, stopping at the first legal move found
          */
-        Collection<ChessPosition> team = getTeammates(teamColor);
-        Collection<ChessMove> potentialMoves = new HashSet<>();
-        for(ChessPosition piece : team) {
-            potentialMoves.addAll(validMoves(piece));
-        }
-        return potentialMoves.isEmpty() && isInCheck(teamColor);
-    }
-
-    private Collection<ChessPosition> getTeammates(TeamColor teamColor) {
-        Collection<ChessPosition> teammates = new HashSet<>();
-        for (int i = 1; i < 9; i++) {
-            for (int j = 1; j < 9; j++) {
-                ChessPosition potential = new ChessPosition(i, j);
-                ChessPiece piece = board.getPiece(potential);
-                if (piece != null && piece.getTeamColor() ==  teamColor) {
-                    teammates.add(potential);
-                }
-            }
-        }
-        return teammates;
+        return isInCheck(teamColor) && !hasAnyLegalMove(teamColor);
     }
 
     /**
@@ -412,14 +541,105 @@ public class ChessGame {
      */
     public boolean isInStalemate(TeamColor teamColor) {
         /* PSEUDO CODE
-        idea: if isInCheck returns true on every square around the king, but not their own, then they are in stalemate
+        idea: not in check, but no legal move left, stopping at the first legal move found
          */
-        Collection<ChessPosition> team = getTeammates(teamColor);
-        Collection<ChessMove> potentialMoves = new HashSet<>();
-        for(ChessPosition piece : team) {
-            potentialMoves.addAll(validMoves(piece));
+        return !isInCheck(teamColor) && !hasAnyLegalMove(teamColor);
+    }
+
+    /**
+     * Checks whether a team has at least one valid move, stopping at the
+     * first piece found with one rather than listing every move
+     *
+     * @param teamColor which team to look for a move for
+     * @return True if the team has a valid move
+     */
+    public boolean hasAnyLegalMove(TeamColor teamColor) {
+        return MoveGenerator.hasAnyLegalMove(this, teamColor);
+    }
+
+    /**
+     * Works out check, checkmate and stalemate for the side to move at once,
+     * looking for a legal move only one time
+     *
+     * @return the status of the game for the team whose turn it is
+     */
+    public GameStatus getGameStatus() {
+        boolean inCheck = isInCheck(currentTurn);
+        if (!hasAnyLegalMove(currentTurn)) {
+            return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        if (isFiftyMoveRule()) {
+            return GameStatus.FIFTY_MOVE_RULE;
+        }
+        if (isThreefoldRepetition()) {
+            return GameStatus.THREEFOLD_REPETITION;
+        }
+        return inCheck ? GameStatus.CHECK : GameStatus.IN_PROGRESS;
+    }
+
+    /**
+     * Counts how many times the current position has come up, including now.
+     * Positions before the last capture or pawn move can never come back, so
+     * only the keys since then are looked at, and only every other one,
+     * since the same side has to be on move.
+     *
+     * @return 1 for a position seen for the first time, 2 for its first
+     * repetition and so on
+     */
+    public int repetitionCount() {
+        long key = positionKey();
+        int count = 1;
+        int reach = Math.min(Math.min(halfmoveClock, keyCount), KEY_HISTORY_SIZE);
+        for (int back = 2; back <= reach; back += 2) {
+            if (keyHistory[(keyCount - back) & (KEY_HISTORY_SIZE - 1)] == key) {
+                count++;
+            }
         }
-        return potentialMoves.isEmpty() && !isInCheck(teamColor);
+        return count;
+    }
+
+    /**
+     * @return how many earlier position keys {@link #repetitionCount()} can
+     * still look at, which are the ones since the last capture or pawn move
+     */
+    public int repetitionKeyCount() {
+        return Math.min(Math.min(halfmoveClock, keyCount), KEY_HISTORY_SIZE);
+    }
+
+    /**
+     * @param index from 0 for the oldest to {@link #repetitionKeyCount()} - 1
+     *              for the position just before this one
+     * @return the key of that earlier position
+     */
+    public long repetitionKey(int index) {
+        return keyHistory[(keyCount - repetitionKeyCount() + index) & (KEY_HISTORY_SIZE - 1)];
+    }
+
+    /**
+     * Records the key of an earlier position, for a game rebuilt from
+     * storage. Keys go in oldest first, straight after building the game.
+     *
+     * @param key a key read back from {@link #repetitionKey(int)}
+     */
+    public void addRepetitionKey(long key) {
+        keyHistory[keyCount++ & (KEY_HISTORY_SIZE - 1)] = key;
+    }
+
+    /**
+     * @return True if the current position has come up at least twice
+     * before, with the same side to move, castling rights and en passant
+     * square each time
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitionCount() >= 3;
+    }
+
+    /**
+     * @return True if fifty moves by each side have passed without a capture
+     * or pawn move
+     */
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= FIFTY_MOVE_PLIES;
     }
 
     /**
@@ -429,6 +649,9 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        // positions from the old board can't repeat on the new one, and its moves can't be taken back
+        keyCount = 0;
+        ply = 0;
     }
 
     /**
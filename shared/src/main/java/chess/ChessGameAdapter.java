@@ -0,0 +1,176 @@
+package chess;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link ChessGame} as one string: the position in FEN, followed by
+ * the earlier position keys that threefold repetition still needs, in hex
+ * after a '|', when there are any. A game that has just started or just had
+ * a capture or pawn move is plain FEN.
+ * <p>
+ * Games stored before this adapter were written out field by field, first
+ * as a board and the side to move, and later with the castling rights,
+ * counters and key history too. Both are still read. Fields the old shape
+ * did not have take the values a new game would, except for the castling
+ * rights, which go to every king and rook still on its starting square
+ * unless the old whiteCanCastle or blackCanCastle flag took them away.
+ */
+public final class ChessGameAdapter extends TypeAdapter<ChessGame> {
+    private static final char KEYS = '|';
+
+    @Override
+    public void write(JsonWriter out, ChessGame game) throws IOException {
+        if (game == null) {
+            out.nullValue();
+            return;
+        }
+        int keys = game.repetitionKeyCount();
+        if (keys == 0) {
+            out.value(game.toFen());
+            return;
+        }
+        var text = new StringBuilder(90 + keys * 17).append(game.toFen()).append(KEYS);
+        for (int i = 0; i < keys; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(Long.toHexString(game.repetitionKey(i)));
+        }
+        out.value(text.toString());
+    }
+
+    @Override
+    public ChessGame read(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case NULL -> {
+                in.nextNull();
+                yield null;
+            }
+            case STRING -> parse(in.nextString());
+            default -> readFields(in);
+        };
+    }
+
+    private static ChessGame parse(String text) {
+        int split = text.indexOf(KEYS);
+        try {
+            if (split < 0) {
+                return ChessGame.fromFen(text);
+            }
+            ChessGame game = ChessGame.fromFen(text.substring(0, split));
+            for (String hex : text.substring(split + 1).split(",")) {
+                game.addRepetitionKey(Long.parseUnsignedLong(hex, 16));
+            }
+            return game;
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException(e.getMessage(), e);
+        }
+    }
+
+    private static ChessGame readFields(JsonReader in) throws IOException {
+        ChessBoard board = null;
+        ChessGame.TeamColor turn = ChessGame.TeamColor.WHITE;
+        int castlingRights = -1;
+        boolean whiteCanCastle = true;
+        boolean blackCanCastle = true;
+        int enPassantSquare = -1;
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        long[] keyHistory = new long[0];
+        int keyCount = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "board" -> board = new ChessBoardAdapter().read(in);
+                case "currentTurn" -> turn = ChessBoardAdapter.readEnum(in, ChessGame.TeamColor.class);
+                case "castlingRights" -> castlingRights = in.nextInt();
+                case "whiteCanCastle" -> whiteCanCastle = in.nextBoolean();
+                case "blackCanCastle" -> blackCanCastle = in.nextBoolean();
+                case "enPassantSquare" -> enPassantSquare = in.nextInt();
+                case "halfmoveClock" -> halfmoveClock = in.nextInt();
+                case "fullmoveNumber" -> fullmoveNumber = in.nextInt();
+                case "keyHistory" -> keyHistory = readLongs(in);
+                case "keyCount" -> keyCount = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (board == null) {
+            board = new ChessBoard();
+            board.resetBoard();
+        }
+        if (turn == null) {
+            turn = ChessGame.TeamColor.WHITE;
+        }
+        if (castlingRights < 0) {
+            // the old flags only ever went false, once a king or rook had moved, even if it moved back
+            castlingRights = homeCastlingRights(board);
+            if (!whiteCanCastle) {
+                castlingRights &= ~(ChessGame.WHITE_KINGSIDE | ChessGame.WHITE_QUEENSIDE);
+            }
+            if (!blackCanCastle) {
+                castlingRights &= ~(ChessGame.BLACK_KINGSIDE | ChessGame.BLACK_QUEENSIDE);
+            }
+        }
+        var game = new ChessGame(board, turn, castlingRights & ChessGame.ALL_CASTLING, enPassantSquare,
+                halfmoveClock, fullmoveNumber);
+
+        // the history was a ring buffer, so the newest key sits just before keyCount
+        int reach = Math.max(0, Math.min(Math.min(halfmoveClock, keyCount), keyHistory.length));
+        for (int i = 0; i < reach; i++) {
+            game.addRepetitionKey(keyHistory[Math.floorMod(keyCount - reach + i, keyHistory.length)]);
+        }
+        return game;
+    }
+
+    private static long[] readLongs(JsonReader in) throws IOException {
+        long[] values = new long[128];
+        int count = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = in.nextLong();
+        }
+        in.endArray();
+        return Arrays.copyOf(values, count);
+    }
+
+    /**
+     * @return the castling rights of every king and rook on its starting
+     * square
+     */
+    private static int homeCastlingRights(ChessBoard board) {
+        int rights = 0;
+        if (board.getPiece(Bitboards.square(1, 5)) == ChessPiece.of(ChessGame.TeamColor.WHITE,
+                ChessPiece.PieceType.KING)) {
+            ChessPiece rook = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+            if (board.getPiece(Bitboards.square(1, 8)) == rook) {
+                rights |= ChessGame.WHITE_KINGSIDE;
+            }
+            if (board.getPiece(Bitboards.square(1, 1)) == rook) {
+                rights |= ChessGame.WHITE_QUEENSIDE;
+            }
+        }
+        if (board.getPiece(Bitboards.square(8, 5)) == ChessPiece.of(ChessGame.TeamColor.BLACK,
+                ChessPiece.PieceType.KING)) {
+            ChessPiece rook = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+            if (board.getPiece(Bitboards.square(8, 8)) == rook) {
+                rights |= ChessGame.BLACK_KINGSIDE;
+            }
+            if (board.getPiece(Bitboards.square(8, 1)) == rook) {
+                rights |= ChessGame.BLACK_QUEENSIDE;
+            }
+        }
+        return rights;
+    }
+}
@@ -5,6 +5,10 @@ import java.util.Objects;
 /**
  * Represents moving a chess piece on a chessboard
  * <p>
+ * Moves are immutable. Every move between two squares, and every pawn
+ * promotion, is created once and shared through
+ * {@link #of(ChessPosition, ChessPosition, ChessPiece.PieceType)}.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
@@ -13,6 +17,30 @@ public class ChessMove {
     private final ChessPosition end;
     private final ChessPiece.PieceType promotionPiece;
 
+    /**
+     * Shared moves indexed by promotion slot, then from and to square. Slot 0
+     * holds plain moves and slots 1-4 line up with the queen, bishop, knight
+     * and rook ordinals, filled only where a pawn can promote.
+     */
+    private static final ChessMove[] MOVES = new ChessMove[5 * 64 * 64];
+
+    static {
+        ChessPiece.PieceType[] types = ChessPiece.PieceType.values();
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                MOVES[from * 64 + to] = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), null);
+                int fromRow = Bitboards.row(from);
+                int toRow = Bitboards.row(to);
+                boolean promotes = ((fromRow == 7 && toRow == 8) || (fromRow == 2 && toRow == 1))
+                        && Math.abs(Bitboards.column(from) - Bitboards.column(to)) <= 1;
+                for (int slot = 1; promotes && slot < 5; slot++) {
+                    MOVES[slot * 4096 + from * 64 + to] = new ChessMove(ChessPosition.of(from),
+                            ChessPosition.of(to), types[slot]);
+                }
+            }
+        }
+    }
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         start = startPosition;
@@ -20,6 +48,44 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets the shared move between two positions. Moves no piece could make,
+     * such as promoting to a king, still get a move, just not a shared one.
+     *
+     * @return a move equal to {@code new ChessMove(start, end, promotionPiece)}
+     */
+    public static ChessMove of(ChessPosition start, ChessPosition end, ChessPiece.PieceType promotionPiece) {
+        if (Bitboards.onBoard(start.getRow(), start.getColumn()) && Bitboards.onBoard(end.getRow(), end.getColumn())) {
+            ChessMove move = shared(Bitboards.square(start), Bitboards.square(end), promotionPiece);
+            if (move != null) {
+                return move;
+            }
+        }
+        return new ChessMove(start, end, promotionPiece);
+    }
+
+    /**
+     * @return the shared move between two square indexes
+     */
+    static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        ChessMove move = shared(from, to, promotionPiece);
+        if (move != null) {
+            return move;
+        }
+        return new ChessMove(ChessPosition.of(from), ChessPosition.of(to), promotionPiece);
+    }
+
+    private static ChessMove shared(int from, int to, ChessPiece.PieceType promotionPiece) {
+        int slot = 0;
+        if (promotionPiece != null) {
+            slot = promotionPiece.ordinal();
+            if (slot < 1 || slot > 4) {
+                return null;
+            }
+        }
+        return MOVES[slot * 4096 + from * 64 + to];
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -56,4 +122,23 @@ public class ChessMove {
     public int hashCode() {
         return Objects.hash(start, end, getPromotionPiece());
     }
+
+    /**
+     * @return the move in coordinate notation, such as "e2e4" or "a7a8q"
+     */
+    @Override
+    public String toString() {
+        String move = start.toString() + end;
+        if (promotionPiece == null) {
+            return move;
+        }
+        return move + switch (promotionPiece) {
+            case QUEEN -> 'q';
+            case ROOK -> 'r';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case KING -> 'k';
+            case PAWN -> 'p';
+        };
+    }
 }
@@ -0,0 +1,111 @@
+package chess;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link ChessMove} in coordinate notation, such as "e2e4" or
+ * "a7a8q", the same as {@link ChessMove#toString()}. Moves written field by
+ * field, with "start" and "end" positions of "row" and "col", are still read.
+ */
+public final class ChessMoveAdapter extends TypeAdapter<ChessMove> {
+    @Override
+    public void write(JsonWriter out, ChessMove move) throws IOException {
+        if (move == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(move.toString());
+    }
+
+    @Override
+    public ChessMove read(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case NULL -> {
+                in.nextNull();
+                yield null;
+            }
+            case STRING -> parse(in.nextString(), in);
+            default -> readFields(in);
+        };
+    }
+
+    private static ChessMove parse(String text, JsonReader in) {
+        if (text.length() != 4 && text.length() != 5) {
+            throw invalid(text, in);
+        }
+        ChessPosition start = square(text, 0, in);
+        ChessPosition end = square(text, 2, in);
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            promotion = switch (text.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw invalid(text, in);
+            };
+        }
+        return ChessMove.of(start, end, promotion);
+    }
+
+    private static ChessPosition square(String text, int at, JsonReader in) {
+        int col = text.charAt(at) - 'a' + 1;
+        int row = text.charAt(at + 1) - '0';
+        if (col < 1 || col > 8 || row < 1 || row > 8) {
+            throw invalid(text, in);
+        }
+        return ChessPosition.of(row, col);
+    }
+
+    private static ChessMove readFields(JsonReader in) throws IOException {
+        ChessPosition start = null;
+        ChessPosition end = null;
+        ChessPiece.PieceType promotion = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "start" -> start = readPosition(in);
+                case "end" -> end = readPosition(in);
+                case "promotionPiece" -> promotion = ChessBoardAdapter.readEnum(in, ChessPiece.PieceType.class);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (start == null || end == null) {
+            throw new JsonSyntaxException("move needs a start and an end at " + in.getPath());
+        }
+        return ChessMove.of(start, end, promotion);
+    }
+
+    private static ChessPosition readPosition(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        int row = 0;
+        int col = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "row" -> row = in.nextInt();
+                case "col" -> col = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            throw new JsonSyntaxException("position off the board at " + in.getPath());
+        }
+        return ChessPosition.of(row, col);
+    }
+
+    private static JsonSyntaxException invalid(String text, JsonReader in) {
+        return new JsonSyntaxException("invalid move \"" + text + "\" at " + in.getPath());
+    }
+}
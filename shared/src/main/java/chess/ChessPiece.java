@@ -1,14 +1,15 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 /**
  * Represents a single chess piece
  * <p>
+ * Pieces are immutable, so one instance of each of the twelve kinds is
+ * shared through {@link #of(ChessGame.TeamColor, PieceType)}.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
@@ -16,11 +17,28 @@ public class ChessPiece {
     private final ChessGame.TeamColor color;
     private final PieceType type;
 
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[color.ordinal() * 6 + type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         color = pieceColor;
         this.type = type;
     }
 
+    /**
+     * @return the shared piece of the given color and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor color, PieceType type) {
+        return PIECES[color.ordinal() * 6 + type.ordinal()];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -55,201 +73,86 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        int x = myPosition.getColumn();
-        int y = myPosition.getRow();
-        List<ChessPosition> newPos = new ArrayList<>();
-
-        int endOfBoard = 8;
-        int direction = 1;
-        if (color == ChessGame.TeamColor.BLACK) {
-            endOfBoard = 1;
-            direction = -1;
-        }
+        var moves = new MoveList();
+        pieceMoves(board, myPosition, moves);
+        Set<ChessMove> newMoves = new HashSet<>();
+        moves.addTo(newMoves);
+        return newMoves;
+    }
 
+    /**
+     * Calculates the same moves as {@link #pieceMoves(ChessBoard, ChessPosition)},
+     * but packs them into a reusable list instead of allocating a collection
+     *
+     * @param moves cleared, then filled with the moves
+     */
+    public void pieceMoves(ChessBoard board, ChessPosition myPosition, MoveList moves) {
+        moves.clear();
+        int square = Bitboards.square(myPosition);
         switch (type) {
             case KING: // can always move in a square around it
-                kingMovement(board, x, y, newPos);
+                targetMovementHelper(board, square, Attacks.kingAttacks(square), moves);
                 break;
             case QUEEN: // can move diagonal / straight if unobstructed
-                queenMovement(board, x, y, newPos);
+                targetMovementHelper(board, square, Attacks.queenAttacks(square, board.getOccupancy()), moves);
                 break;
             case BISHOP:
-                bishopMovementHelper(board, x, y, newPos);
+                targetMovementHelper(board, square, Attacks.bishopAttacks(square, board.getOccupancy()), moves);
                 break;
             case KNIGHT:
-                knightMovementHelper(board, x, y, newPos);
+                targetMovementHelper(board, square, Attacks.knightAttacks(square), moves);
                 break;
             case ROOK:
-                rookMovementHelper(board, x, y, newPos);
+                targetMovementHelper(board, square, Attacks.rookAttacks(square, board.getOccupancy()), moves);
                 break;
             case PAWN:
-                pawnMovementHelper(board, x, y, endOfBoard, direction, newPos);
+                pawnMovementHelper(board, square, moves);
                 break;
         }
-
-        Set<ChessMove> newMoves = new HashSet<>();
-        for (ChessPosition pos : newPos) {
-            if (pos.getRow() == endOfBoard && this.getPieceType() == PieceType.PAWN) {
-                newMoves.add(new ChessMove(myPosition, pos, PieceType.QUEEN));
-                newMoves.add(new ChessMove(myPosition, pos, PieceType.BISHOP));
-                newMoves.add(new ChessMove(myPosition, pos, PieceType.KNIGHT));
-                newMoves.add(new ChessMove(myPosition, pos, PieceType.ROOK));
-            } else {
-                newMoves.add(new ChessMove(myPosition, pos, null));
-            }
-
-        }
-
-        return newMoves;
     }
 
-    private void pawnMovementHelper(ChessBoard board, int x, int y, int endOfBoard, int direction, List<ChessPosition> newPos) {
+    private void pawnMovementHelper(ChessBoard board, int square, MoveList moves) {
+        int endOfBoard = 8;
+        int direction = 8;
         int startingRow = 2;
+        ChessGame.TeamColor opponent = ChessGame.TeamColor.BLACK;
         if (color == ChessGame.TeamColor.BLACK) {
+            endOfBoard = 1;
+            direction = -8;
             startingRow = 7;
+            opponent = ChessGame.TeamColor.WHITE;
         }
-        if (y == endOfBoard) {
+        int row = Bitboards.row(square);
+        if (row == endOfBoard) {
             return;
-        } else {
-            ChessPosition potential = new ChessPosition(y + direction, x);
-            if (board.getPiece(potential) == null) {
-                newPos.add(potential);
-                if (y == startingRow) {
-                    ChessPosition secondPotential = new ChessPosition(y + 2 * direction, x);
-                    if (board.getPiece(secondPotential) == null) {
-                        newPos.add(secondPotential);
-                    }
-                }
-            }
-        }
-        
-        ChessPosition[] attackPositions = {new ChessPosition(y+direction, x+1), new ChessPosition(y+direction, x-1)};
-        for (ChessPosition attack : attackPositions) {
-            ChessPiece potentialAttack = board.getPiece(attack);
-            if (potentialAttack != null && potentialAttack.color != this.color) {
-                newPos.add(attack);
-            }
         }
-    }
 
-    private void rookMovementHelper(ChessBoard board, int x, int y, List<ChessPosition> newPos) {
-        colRowMovementHelper(board, x, y, newPos);
-    }
-
-    private void knightMovementHelper(ChessBoard board, int x, int y, List<ChessPosition> newPos) {
-        int[][] potentialMoves = {
-                {x + 2, y + 1},
-                {x + 2, y - 1},
-                {x - 2, y + 1},
-                {x - 2, y - 1},
-                {x + 1, y + 2},
-                {x + 1, y - 2},
-                {x - 1, y + 2},
-                {x - 1, y - 2}
-        };
-
-        for (int[] move : potentialMoves) {
-            ChessPosition potentialMove = new ChessPosition(move[1], move[0]);
-            ChessPiece potentialObstacle = board.getPiece(potentialMove);
-            boolean isNotObstacle = potentialObstacle == null || potentialObstacle.getTeamColor() != color;
-            boolean isInBounds = move[0] < 9 && move[0] > 0 && move[1] < 9 && move[1] > 0;
-            if (isNotObstacle && isInBounds) {
-                newPos.add(potentialMove);
+        long occupied = board.getOccupancy();
+        int potential = square + direction;
+        if ((occupied & Bitboards.bit(potential)) == 0) {
+            moves.addPawnMove(square, potential);
+            int secondPotential = potential + direction;
+            if (row == startingRow && (occupied & Bitboards.bit(secondPotential)) == 0) {
+                moves.add(PackedMove.of(square, secondPotential));
             }
         }
-    }
 
-    private void bishopMovementHelper(ChessBoard board, int x, int y, List<ChessPosition> newPos) {
-        diagonalMovementHelper(board, x, y, newPos);
-    }
-
-    private void queenMovement(ChessBoard board, int x, int y, List<ChessPosition> newPos) {
-        rookMovementHelper(board, x, y, newPos);
-        bishopMovementHelper(board, x, y, newPos);
-    }
-
-    private void kingMovement(ChessBoard board, int x, int y, List<ChessPosition> newPos) {
-        for (int i = -1; i < 2; i++) {
-            for (int j = -1; j < 2; j++) {
-                ChessPosition potential = new ChessPosition(y+j, x+i);
-                if (potential.getColumn() < 9 && potential.getColumn() > 0 && potential.getRow() < 9 && potential.getRow() > 0) {
-                    ChessPiece obstacle = board.getPiece(potential);
-                    if (obstacle == null || obstacle.getTeamColor() != color) {
-                        newPos.add(potential);
-                    }
-                }
-            }
+        long captures = Attacks.pawnAttacks(color, square) & board.getOccupancy(opponent);
+        while (captures != 0) {
+            moves.addPawnMove(square, Long.numberOfTrailingZeros(captures));
+            captures &= captures - 1;
         }
     }
 
-    private boolean isUnobstructed(ChessBoard board, List<ChessPosition> newPos, boolean direction, ChessPosition potential) {
-        ChessPiece obstacle = board.getPiece(potential);
-        if (obstacle != null && obstacle.getTeamColor() != color) {
-            newPos.add(potential);
-            direction = false;
-        } else if (obstacle != null) {
-            direction = false;
-        } else {
-            newPos.add(potential);
-        }
-        return direction;
-    }
-
-    private void colRowMovementHelper(ChessBoard board, int x, int y, List<ChessPosition> newPos) {
-        boolean up = true;
-        boolean down = true;
-        boolean left = true;
-        boolean right = true;
-
-        for (int i = 1; i < 9; i++) {
-            if (x+i < 9 && up) {
-                ChessPosition potential = new ChessPosition(y, x + i);
-                up = isUnobstructed(board, newPos, up, potential);
-            }
-
-            if (x-i > 0 && down) {
-                ChessPosition potential = new ChessPosition(y, x - i);
-                down = isUnobstructed(board, newPos, down, potential);
-            }
-
-            if (y+i < 9 && right) {
-                ChessPosition potential = new ChessPosition(y+i, x);
-                right = isUnobstructed(board, newPos, right, potential);
-            }
-
-            if (y-i > 0 && left) {
-                ChessPosition potential = new ChessPosition(y-i, x);
-                left = isUnobstructed(board, newPos, left, potential);
-            }
-        }
-    }
-
-    private void diagonalMovementHelper(ChessBoard board, int x, int y, List<ChessPosition> newPos) {
-        boolean upLeft = true;
-        boolean upRight = true;
-        boolean downLeft = true;
-        boolean downRight = true;
-
-        for(int i = 1; i < 9; i++) {
-            if(i + x < 9 && i + y < 9 && upRight) {
-                ChessPosition potential = new ChessPosition(y+i, x+i);
-                upRight = isUnobstructed(board, newPos, upRight, potential);
-            }
-
-            if(i + x < 9 && y - i > 0 && downRight) {
-                ChessPosition potential = new ChessPosition(y-i, x+i);
-                downRight = isUnobstructed(board, newPos, downRight, potential);
-            }
-
-            if(x - i > 0 && i + y < 9 && upLeft) {
-                ChessPosition potential = new ChessPosition(y+i, x-i);
-                upLeft = isUnobstructed(board, newPos, upLeft, potential);
-            }
-
-            if(x - i > 0 && y - i > 0 && downLeft) {
-                ChessPosition potential = new ChessPosition(y-i, x-i);
-                downLeft = isUnobstructed(board, newPos, downLeft, potential);
-            }
+    /**
+     * Adds every attacked square that isn't held by one of our own pieces,
+     * which covers both quiet moves and captures for every piece but a pawn
+     */
+    private void targetMovementHelper(ChessBoard board, int square, long attacks, MoveList moves) {
+        long targets = attacks & ~board.getOccupancy(color);
+        while (targets != 0) {
+            moves.add(PackedMove.of(square, Long.numberOfTrailingZeros(targets)));
+            targets &= targets - 1;
         }
     }
 
@@ -3,6 +3,9 @@ package chess;
 /**
  * Represents a single square position on a chess board
  * <p>
+ * Positions are immutable, so the 64 squares of the board are created once
+ * and shared through {@link #of(int, int)}.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
@@ -10,11 +13,39 @@ public class ChessPosition {
     private final int row;
     private final int col;
 
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition(Bitboards.row(square), Bitboards.column(square));
+        }
+    }
+
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * Gets the shared position for a row and column. Coordinates off the
+     * board still get a position, just not a shared one.
+     *
+     * @return a position equal to {@code new ChessPosition(row, col)}
+     */
+    public static ChessPosition of(int row, int col) {
+        if (Bitboards.onBoard(row, col)) {
+            return SQUARES[Bitboards.square(row, col)];
+        }
+        return new ChessPosition(row, col);
+    }
+
+    /**
+     * @return the shared position for a square index
+     */
+    static ChessPosition of(int square) {
+        return SQUARES[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -44,4 +75,12 @@ public class ChessPosition {
     public int hashCode() {
         return this.getRow() * 100 + this.getColumn();
     }
+
+    /**
+     * @return the square in algebraic notation, such as "e4"
+     */
+    @Override
+    public String toString() {
+        return "" + (char) ('a' + col - 1) + row;
+    }
 }
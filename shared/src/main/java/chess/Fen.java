@@ -0,0 +1,234 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ * <p>
+ * Parsing walks the text once by index without splitting it, and writing
+ * fills a single builder, so a round trip creates little besides the board.
+ */
+final class Fen {
+    static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * FEN letters indexed the same way as {@link ChessBoard#index}
+     */
+    private static final char[] PIECE_LETTERS = "KQBNRPkqbnrp".toCharArray();
+
+    private Fen() {
+    }
+
+    static ChessGame parseGame(String fen) {
+        fen = fen.strip();
+        var board = new ChessBoard();
+        int i = parsePlacement(fen, board);
+
+        i = skipSpace(fen, i);
+        ChessGame.TeamColor turn = switch (charAt(fen, i++)) {
+            case 'w' -> ChessGame.TeamColor.WHITE;
+            case 'b' -> ChessGame.TeamColor.BLACK;
+            default -> throw invalid(fen, "side to move must be 'w' or 'b'");
+        };
+
+        i = skipSpace(fen, i);
+        int castling = 0;
+        if (charAt(fen, i) == '-') {
+            i++;
+        } else {
+            while (i < fen.length() && fen.charAt(i) != ' ') {
+                castling |= switch (fen.charAt(i++)) {
+                    case 'K' -> ChessGame.WHITE_KINGSIDE;
+                    case 'Q' -> ChessGame.WHITE_QUEENSIDE;
+                    case 'k' -> ChessGame.BLACK_KINGSIDE;
+                    case 'q' -> ChessGame.BLACK_QUEENSIDE;
+                    default -> throw invalid(fen, "unknown castling right");
+                };
+            }
+        }
+
+        i = skipSpace(fen, i);
+        int enPassant = -1;
+        if (charAt(fen, i) == '-') {
+            i++;
+        } else {
+            int col = charAt(fen, i++) - 'a' + 1;
+            int row = charAt(fen, i++) - '0';
+            if (col < 1 || col > 8 || (row != 3 && row != 6)) {
+                throw invalid(fen, "bad en passant square");
+            }
+            enPassant = Bitboards.square(row, col);
+        }
+
+        // the move counters are often left off, so they are optional
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if (i < fen.length()) {
+            i = skipSpace(fen, i);
+            int start = i;
+            i = skipNumber(fen, i);
+            halfmoveClock = parseNumber(fen, start, i);
+            i = skipSpace(fen, i);
+            start = i;
+            i = skipNumber(fen, i);
+            fullmoveNumber = parseNumber(fen, start, i);
+            if (fullmoveNumber < 1) {
+                throw invalid(fen, "fullmove number starts at 1");
+            }
+        }
+        if (i != fen.length()) {
+            throw invalid(fen, "unexpected text after the position");
+        }
+
+        return new ChessGame(board, turn, castling, enPassant, halfmoveClock, fullmoveNumber);
+    }
+
+    /**
+     * Reads the piece placement field onto an empty board
+     *
+     * @return the index just past the placement field
+     */
+    static int parsePlacement(String fen, ChessBoard board) {
+        int row = 8;
+        int col = 1;
+        int i = 0;
+        for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 9 || row == 1) {
+                    throw invalid(fen, "row " + row + " does not cover 8 squares");
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 9) {
+                    throw invalid(fen, "row " + row + " runs past 8 squares");
+                }
+            } else {
+                if (col > 8) {
+                    throw invalid(fen, "row " + row + " runs past 8 squares");
+                }
+                board.addPiece(Bitboards.square(row, col), pieceFor(fen, c));
+                col++;
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw invalid(fen, "placement must cover all 8 rows");
+        }
+        return i;
+    }
+
+    static String write(ChessGame game) {
+        var out = new StringBuilder(90);
+        writePlacement(game.getBoard(), out);
+
+        out.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+
+        int castling = game.getCastlingRights();
+        if (castling == 0) {
+            out.append('-');
+        } else {
+            if ((castling & ChessGame.WHITE_KINGSIDE) != 0) {
+                out.append('K');
+            }
+            if ((castling & ChessGame.WHITE_QUEENSIDE) != 0) {
+                out.append('Q');
+            }
+            if ((castling & ChessGame.BLACK_KINGSIDE) != 0) {
+                out.append('k');
+            }
+            if ((castling & ChessGame.BLACK_QUEENSIDE) != 0) {
+                out.append('q');
+            }
+        }
+
+        int enPassant = game.getEnPassantSquare();
+        out.append(' ');
+        if (enPassant < 0) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + Bitboards.column(enPassant) - 1)).append(Bitboards.row(enPassant));
+        }
+
+        out.append(' ').append(game.getHalfmoveClock());
+        out.append(' ').append(game.getFullmoveNumber());
+        return out.toString();
+    }
+
+    static void writePlacement(ChessBoard board, StringBuilder out) {
+        for (int row = 8; row > 0; row--) {
+            int empty = 0;
+            for (int col = 1; col < 9; col++) {
+                ChessPiece piece = board.getPiece(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(PIECE_LETTERS[ChessBoard.index(piece.getTeamColor(), piece.getPieceType())]);
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                out.append('/');
+            }
+        }
+    }
+
+    private static ChessPiece pieceFor(String fen, char letter) {
+        ChessGame.TeamColor color = Character.isUpperCase(letter) ? ChessGame.TeamColor.WHITE
+                : ChessGame.TeamColor.BLACK;
+        ChessPiece.PieceType type = switch (Character.toLowerCase(letter)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw invalid(fen, "unknown piece '" + letter + "'");
+        };
+        return ChessPiece.of(color, type);
+    }
+
+    private static char charAt(String fen, int i) {
+        if (i >= fen.length()) {
+            throw invalid(fen, "position is cut short");
+        }
+        return fen.charAt(i);
+    }
+
+    private static int skipSpace(String fen, int i) {
+        if (charAt(fen, i) != ' ') {
+            throw invalid(fen, "fields must be separated by spaces");
+        }
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipNumber(String fen, int i) {
+        while (i < fen.length() && fen.charAt(i) >= '0' && fen.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int parseNumber(String fen, int start, int end) {
+        if (start == end || end - start > 6) {
+            throw invalid(fen, "move counters must be numbers");
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (fen.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalid(String fen, String reason) {
+        return new IllegalArgumentException("invalid FEN \"" + fen + "\": " + reason);
+    }
+}
@@ -0,0 +1,91 @@
+package chess;
+
+import java.util.Collection;
+
+/**
+ * A read-only copy of a game as it stood at one moment.
+ * <p>
+ * Snapshots come from {@link ChessGame#snapshot()} and cannot change after
+ * they are made, so any number of threads can read one without locking,
+ * for example to send a position out to every observer of a game while the
+ * game itself moves on.
+ */
+public final class GameSnapshot {
+    private final ChessGame game;
+
+    GameSnapshot(ChessGame source) {
+        game = new ChessGame(source);
+    }
+
+    /**
+     * @return the piece at the position, or null if it is empty
+     */
+    public ChessPiece getPiece(ChessPosition position) {
+        return game.getBoard().getPiece(position);
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return game.getTeamTurn();
+    }
+
+    /**
+     * @see ChessGame#validMoves(ChessPosition)
+     */
+    public Collection<ChessMove> validMoves(ChessPosition startPosition) {
+        return game.validMoves(startPosition);
+    }
+
+    /**
+     * @see ChessGame#validMoves(ChessPosition, MoveList)
+     */
+    public void validMoves(ChessPosition startPosition, MoveList moves) {
+        game.validMoves(startPosition, moves);
+    }
+
+    public boolean isInCheck(ChessGame.TeamColor teamColor) {
+        return game.isInCheck(teamColor);
+    }
+
+    public boolean isInCheckmate(ChessGame.TeamColor teamColor) {
+        return game.isInCheckmate(teamColor);
+    }
+
+    public boolean isInStalemate(ChessGame.TeamColor teamColor) {
+        return game.isInStalemate(teamColor);
+    }
+
+    public ChessGame.GameStatus getGameStatus() {
+        return game.getGameStatus();
+    }
+
+    public long positionKey() {
+        return game.positionKey();
+    }
+
+    public String toFen() {
+        return game.toFen();
+    }
+
+    /**
+     * @return a new game starting from this position, which the caller may
+     * play moves on
+     */
+    public ChessGame toGame() {
+        return new ChessGame(game);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GameSnapshot that && game.equals(that.game);
+    }
+
+    @Override
+    public int hashCode() {
+        return game.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
@@ -0,0 +1,285 @@
+package chess;
+
+import static chess.ChessBoard.BISHOP;
+import static chess.ChessBoard.KNIGHT;
+import static chess.ChessBoard.PAWN;
+import static chess.ChessBoard.QUEEN;
+import static chess.ChessBoard.ROOK;
+
+/**
+ * Generates only legal moves, without trying each one on the board.
+ * <p>
+ * The pieces giving check and the pieces pinned to the king are found once
+ * per call. With two checkers only the king may move. With one, every other
+ * move has to capture the checker or step between it and the king, and a
+ * pinned piece may only move along the line of its pin. King moves are
+ * tested with the king lifted off the board so it cannot retreat along a
+ * slider's ray. En passant takes two pieces off a rank at once, so it is the
+ * one move checked against the occupancy it leaves behind.
+ */
+final class MoveGenerator {
+    private MoveGenerator() {
+    }
+
+    /**
+     * Adds the legal moves of one side's pieces standing on the given squares
+     *
+     * @param game     the position to generate moves in
+     * @param side     whose moves to generate, which need not be the side to move
+     * @param fromMask squares to generate moves from
+     * @param moves    the list to add the moves to
+     */
+    static void generate(ChessGame game, ChessGame.TeamColor side, long fromMask, MoveList moves) {
+        collect(game, side, fromMask, moves, false, false);
+    }
+
+    /**
+     * Adds only the legal captures and promotions of one side, which is what
+     * a search needs to settle a position before evaluating it
+     */
+    static void generateTactical(ChessGame game, ChessGame.TeamColor side, MoveList moves) {
+        collect(game, side, -1L, moves, true, false);
+    }
+
+    /**
+     * Looks for any legal move at all, stopping at the first piece that has
+     * one. Kings, knights and pawns are tried before the sliders since their
+     * moves are the cheapest to find.
+     *
+     * @return true if the side has a legal move
+     */
+    static boolean hasAnyLegalMove(ChessGame game, ChessGame.TeamColor side) {
+        // one piece never has more than 27 moves, so the list never grows
+        return collect(game, side, -1L, new MoveList(32), false, true);
+    }
+
+    /**
+     * @param tacticalOnly whether to leave out moves that neither capture
+     *                     nor promote
+     * @param firstOnly    whether to return as soon as any move has been added
+     * @return true if any move was added
+     */
+    private static boolean collect(ChessGame game, ChessGame.TeamColor side, long fromMask, MoveList moves,
+                                   boolean tacticalOnly, boolean firstOnly) {
+        int added = moves.size();
+        ChessBoard board = game.getBoard();
+        long[] pieces = board.pieces;
+        int us = side.ordinal() * 6;
+        int them = 6 - us;
+        ChessGame.TeamColor enemy = side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        long ours = board.getOccupancy(side);
+        long occupied = board.getOccupancy();
+        long targetMask = tacticalOnly ? board.getOccupancy(enemy) : ~ours;
+
+        int king = board.kingSquare(side);
+        if (king < 0) {
+            return false; // isInCheck treats a missing king as captured, so nothing is legal
+        }
+        long kingBit = Bitboards.bit(king);
+        long checkers = board.attackersTo(king, enemy, occupied);
+
+        if ((fromMask & kingBit) != 0) {
+            long targets = Attacks.kingAttacks(king) & targetMask;
+            long withoutKing = occupied ^ kingBit;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                if (!board.isAttacked(to, enemy, withoutKing)) {
+                    add(king, to, moves);
+                }
+                targets &= targets - 1;
+            }
+            if (checkers == 0 && !tacticalOnly) {
+                addCastling(game, side, king, moves);
+            }
+        }
+        if (Long.bitCount(checkers) > 1 || (firstOnly && moves.size() > added)) {
+            return moves.size() > added;
+        }
+
+        long checkMask = -1L;
+        if (checkers != 0) {
+            checkMask = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+        }
+        long pinned = pinnedPieces(board, king, us, them);
+        long allowed = targetMask & checkMask;
+
+        // a pinned knight can never stay on its pin line
+        long knights = pieces[us + KNIGHT] & fromMask & ~pinned;
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            addAll(from, Attacks.knightAttacks(from) & allowed, moves);
+            if (firstOnly && moves.size() > added) {
+                return true;
+            }
+            knights &= knights - 1;
+        }
+
+        if (addPawnMoves(game, side, king, checkMask, pinned, pieces[us + PAWN] & fromMask, moves, tacticalOnly,
+                firstOnly)) {
+            return true;
+        }
+
+        long diagonal = (pieces[us + BISHOP] | pieces[us + QUEEN]) & fromMask;
+        while (diagonal != 0) {
+            int from = Long.numberOfTrailingZeros(diagonal);
+            addAll(from, Attacks.bishopAttacks(from, occupied) & allowed & pinLine(pinned, king, from), moves);
+            if (firstOnly && moves.size() > added) {
+                return true;
+            }
+            diagonal &= diagonal - 1;
+        }
+
+        long straight = (pieces[us + ROOK] | pieces[us + QUEEN]) & fromMask;
+        while (straight != 0) {
+            int from = Long.numberOfTrailingZeros(straight);
+            addAll(from, Attacks.rookAttacks(from, occupied) & allowed & pinLine(pinned, king, from), moves);
+            straight &= straight - 1;
+        }
+        return moves.size() > added;
+    }
+
+    /**
+     * Finds our pieces that are the only thing standing between the king and
+     * an enemy slider on the same line
+     */
+    private static long pinnedPieces(ChessBoard board, int king, int us, int them) {
+        long[] pieces = board.pieces;
+        long theirs = board.colors[them / 6];
+        long snipers = (Attacks.rookAttacks(king, theirs) & (pieces[them + ROOK] | pieces[them + QUEEN]))
+                | (Attacks.bishopAttacks(king, theirs) & (pieces[them + BISHOP] | pieces[them + QUEEN]));
+        long ours = board.colors[us / 6];
+        long pinned = 0L;
+        while (snipers != 0) {
+            long blockers = Attacks.between(king, Long.numberOfTrailingZeros(snipers)) & board.getOccupancy();
+            if (Long.bitCount(blockers) == 1 && (blockers & ours) != 0) {
+                pinned |= blockers;
+            }
+            snipers &= snipers - 1;
+        }
+        return pinned;
+    }
+
+    private static long pinLine(long pinned, int king, int from) {
+        return (pinned & Bitboards.bit(from)) != 0 ? Attacks.line(king, from) : -1L;
+    }
+
+    /**
+     * @return true if firstOnly is set and a move was added
+     */
+    private static boolean addPawnMoves(ChessGame game, ChessGame.TeamColor side, int king, long checkMask,
+                                        long pinned, long pawns, MoveList moves, boolean tacticalOnly,
+                                        boolean firstOnly) {
+        int added = moves.size();
+        ChessBoard board = game.getBoard();
+        boolean white = side == ChessGame.TeamColor.WHITE;
+        int forward = white ? 8 : -8;
+        int startRow = white ? 2 : 7;
+        long promotionRank = white ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        long occupied = board.getOccupancy();
+        long theirs = board.getOccupancy(white ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        int enPassant = game.getTeamTurn() == side ? game.getEnPassantSquare() : -1;
+        // a pawn can only be on its last row if it was placed there, and then it has nowhere to go
+        pawns &= ~promotionRank;
+
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = checkMask & pinLine(pinned, king, from);
+
+            int one = from + forward;
+            if ((occupied & Bitboards.bit(one)) == 0) {
+                boolean wanted = !tacticalOnly || (promotionRank & Bitboards.bit(one)) != 0;
+                if (wanted && (allowed & Bitboards.bit(one)) != 0) {
+                    moves.addPawnMove(from, one);
+                }
+                int two = one + forward;
+                if (!tacticalOnly && Bitboards.row(from) == startRow && (occupied & Bitboards.bit(two)) == 0
+                        && (allowed & Bitboards.bit(two)) != 0) {
+                    add(from, two, moves);
+                }
+            }
+
+            long attacks = Attacks.pawnAttacks(side, from);
+            addPawnCaptures(from, attacks & theirs & allowed, moves);
+
+            if (enPassant >= 0 && (attacks & Bitboards.bit(enPassant)) != 0
+                    && enPassantIsSafe(board, side, king, from, enPassant, enPassant - forward)) {
+                add(from, enPassant, moves);
+            }
+            if (firstOnly && moves.size() > added) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks the king against the position left after an en passant capture.
+     * Both pawns leave the rank, which can uncover a rook or queen that no pin
+     * mask would catch, and the capture can also resolve a check by the pawn
+     * that just moved.
+     */
+    private static boolean enPassantIsSafe(ChessBoard board, ChessGame.TeamColor side, int king, int from,
+                                           int to, int captured) {
+        long[] pieces = board.pieces;
+        int them = 6 - side.ordinal() * 6;
+        long after = (board.getOccupancy() ^ Bitboards.bit(from) ^ Bitboards.bit(captured)) | Bitboards.bit(to);
+        long queens = pieces[them + QUEEN];
+        return (Attacks.knightAttacks(king) & pieces[them + KNIGHT]) == 0
+                && (Attacks.pawnAttacks(side, king) & pieces[them + PAWN] & ~Bitboards.bit(captured)) == 0
+                && (Attacks.bishopAttacks(king, after) & (pieces[them + BISHOP] | queens)) == 0
+                && (Attacks.rookAttacks(king, after) & (pieces[them + ROOK] | queens)) == 0;
+    }
+
+    /**
+     * Adds castling moves as the king's two-square step. The king must not
+     * be in check, which the caller has already made sure of.
+     */
+    private static void addCastling(ChessGame game, ChessGame.TeamColor side, int king,
+                                    MoveList moves) {
+        boolean white = side == ChessGame.TeamColor.WHITE;
+        int home = white ? Bitboards.square(1, 5) : Bitboards.square(8, 5);
+        if (king != home) {
+            return;
+        }
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor enemy = white ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int rights = game.getCastlingRights();
+        long rooks = board.getBitboard(side, ChessPiece.PieceType.ROOK);
+        long occupied = board.getOccupancy();
+
+        if ((rights & (white ? ChessGame.WHITE_KINGSIDE : ChessGame.BLACK_KINGSIDE)) != 0
+                && (rooks & Bitboards.bit(home + 3)) != 0
+                && (occupied & Attacks.between(home, home + 3)) == 0
+                && !board.isAttacked(home + 1, enemy, occupied)
+                && !board.isAttacked(home + 2, enemy, occupied)) {
+            add(home, home + 2, moves);
+        }
+        if ((rights & (white ? ChessGame.WHITE_QUEENSIDE : ChessGame.BLACK_QUEENSIDE)) != 0
+                && (rooks & Bitboards.bit(home - 4)) != 0
+                && (occupied & Attacks.between(home, home - 4)) == 0
+                && !board.isAttacked(home - 1, enemy, occupied)
+                && !board.isAttacked(home - 2, enemy, occupied)) {
+            add(home, home - 2, moves);
+        }
+    }
+
+    private static void addPawnCaptures(int from, long targets, MoveList moves) {
+        while (targets != 0) {
+            moves.addPawnMove(from, Long.numberOfTrailingZeros(targets));
+            targets &= targets - 1;
+        }
+    }
+
+    private static void addAll(int from, long targets, MoveList moves) {
+        while (targets != 0) {
+            add(from, Long.numberOfTrailingZeros(targets), moves);
+            targets &= targets - 1;
+        }
+    }
+
+    private static void add(int from, int to, MoveList moves) {
+        moves.add(PackedMove.of(from, to));
+    }
+}
@@ -0,0 +1,116 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A reusable list of {@link PackedMove packed moves} backed by an int array.
+ * <p>
+ * Move generators clear the list and fill it, so a caller that keeps one
+ * list per search ply can generate moves without allocating anything. The
+ * array starts large enough for any legal chess position and only grows for
+ * unusual hand-built boards.
+ */
+public final class MoveList {
+    /**
+     * More moves than any legal position allows, which is 218
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    /**
+     * @return how many moves the list holds
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the packed move at an index
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+        }
+        return moves[index];
+    }
+
+    /**
+     * Swaps two moves, which is all a search needs to order them in place
+     */
+    public void swap(int i, int j) {
+        int move = get(i);
+        moves[i] = get(j);
+        moves[j] = move;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * Adds a pawn move, expanding it into the four promotions when it
+     * reaches the last row
+     */
+    void addPawnMove(int from, int to) {
+        if ((Bitboards.bit(to) & (Bitboards.RANK_1 | Bitboards.RANK_8)) == 0) {
+            add(PackedMove.of(from, to));
+            return;
+        }
+        add(PackedMove.of(from, to, ChessPiece.PieceType.QUEEN));
+        add(PackedMove.of(from, to, ChessPiece.PieceType.BISHOP));
+        add(PackedMove.of(from, to, ChessPiece.PieceType.KNIGHT));
+        add(PackedMove.of(from, to, ChessPiece.PieceType.ROOK));
+    }
+
+    /**
+     * Adds every move in the list to a collection as shared {@link ChessMove}s
+     */
+    public void addTo(Collection<ChessMove> out) {
+        for (int i = 0; i < size; i++) {
+            out.add(PackedMove.toChessMove(moves[i]));
+        }
+    }
+
+    @Override
+    public String toString() {
+        var out = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(PackedMove.toString(moves[i]));
+        }
+        return out.append(']').toString();
+    }
+}
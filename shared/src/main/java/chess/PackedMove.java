@@ -0,0 +1,95 @@
+package chess;
+
+/**
+ * Packs a move into a single int so move lists need no objects.
+ * <p>
+ * Bits 0-5 hold the from square, bits 6-11 the to square and bits 12-14 the
+ * promotion piece, stored as its {@link ChessPiece.PieceType} ordinal (queen
+ * 1, bishop 2, knight 3, rook 4) or 0 when the move does not promote. Every
+ * packed move is therefore non-zero unless it goes from a1 to a1, which no
+ * piece can do, so 0 is free to mean "no move".
+ */
+public final class PackedMove {
+    public static final int NONE = 0;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    /**
+     * @return a move between two square indexes that does not promote
+     */
+    public static int of(int from, int to) {
+        return from | to << 6;
+    }
+
+    /**
+     * @return a move between two square indexes, promoting to the given piece
+     * if it is not null
+     * @throws IllegalArgumentException if the piece is a king or a pawn,
+     *                                  which a king's ordinal of 0 would
+     *                                  otherwise pack as no promotion
+     */
+    public static int of(int from, int to, ChessPiece.PieceType promotion) {
+        int packed = from | to << 6;
+        if (promotion != null) {
+            if (!isPromotion(promotion)) {
+                throw new IllegalArgumentException("cannot promote to " + promotion);
+            }
+            packed |= promotion.ordinal() << 12;
+        }
+        return packed;
+    }
+
+    /**
+     * @return true if a pawn may promote to the piece
+     */
+    static boolean isPromotion(ChessPiece.PieceType type) {
+        return type != ChessPiece.PieceType.KING && type != ChessPiece.PieceType.PAWN;
+    }
+
+    /**
+     * @return the packed form of a move
+     */
+    public static int of(ChessMove move) {
+        return of(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    /**
+     * @return the square index the move starts from
+     */
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    /**
+     * @return the square index the move ends on
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the piece the move promotes to, or null if it does not promote
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int type = move >>> 12;
+        return type == 0 ? null : TYPES[type];
+    }
+
+    /**
+     * @return the shared {@link ChessMove} for a packed move
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotion(move));
+    }
+
+    /**
+     * @return the move in coordinate notation, such as "e2e4" or "a7a8q"
+     */
+    public static String toString(int move) {
+        return toChessMove(move).toString();
+    }
+}
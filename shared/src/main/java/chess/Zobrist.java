@@ -0,0 +1,64 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing of positions.
+ * <p>
+ * A position key is the XOR of one key per piece on its square, plus keys for
+ * the side to move, the castling rights and the en passant file. Every change
+ * to the position only has to XOR the affected keys in or out. The keys come
+ * from a fixed seed so they are the same on every run and can be stored
+ * alongside games.
+ */
+final class Zobrist {
+    static final long[][] PIECE_SQUARE = new long[ChessBoard.PIECE_KINDS][64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_FILE = new long[8];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (long[] squares : PIECE_SQUARE) {
+            for (int i = 0; i < squares.length; i++) {
+                seed += 0x9E3779B97F4A7C15L;
+                squares[i] = mix(seed);
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            CASTLING[i] = mix(seed);
+        }
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            EN_PASSANT_FILE[i] = mix(seed);
+        }
+        seed += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(seed);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * SplitMix64 finalizer, turns a counter into a well spread 64-bit value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Hashes the pieces of a board from scratch. The board keeps its own key
+     * up to date as pieces move, so this is only needed to verify it.
+     */
+    static long computeKey(ChessBoard board) {
+        long key = 0L;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null) {
+                key ^= PIECE_SQUARE[ChessBoard.index(piece.getTeamColor(), piece.getPieceType())][square];
+            }
+        }
+        return key;
+    }
+}
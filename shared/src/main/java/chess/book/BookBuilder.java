@@ -0,0 +1,162 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.MoveList;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an {@link OpeningBook} from PGN game collections.
+ * <p>
+ * The first plies of every game are replayed, and each position and the
+ * move played from it is counted. A move's weight is how many games played
+ * it, capped at what a book entry can hold. Games with a move that cannot
+ * be read are kept up to that move and counted as skipped. Run it with
+ * {@code java -cp shared/target/classes chess.book.BookBuilder <book file>
+ * <pgn file>... [--plies n] [--min-games n]}.
+ */
+public final class BookBuilder {
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final int maxPlies;
+    /**
+     * Games seen for each position key and packed move
+     */
+    private final Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+    private final MoveList scratch = new MoveList();
+    private int games;
+    private int skipped;
+
+    /**
+     * @param maxPlies how many plies of each game to put in the book
+     */
+    public BookBuilder(int maxPlies) {
+        if (maxPlies < 1) {
+            throw new IllegalArgumentException("a book needs at least one ply per game");
+        }
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Adds every game of a PGN collection
+     *
+     * @param pgn the PGN text
+     * @return how many games were read
+     */
+    public int addPgn(Reader pgn) throws IOException {
+        var reader = new PgnReader(pgn instanceof BufferedReader ? pgn : new BufferedReader(pgn));
+        int read = 0;
+        PgnReader.Game game;
+        while ((game = reader.next()) != null) {
+            addGame(game);
+            read++;
+        }
+        return read;
+    }
+
+    private void addGame(PgnReader.Game pgnGame) {
+        games++;
+        ChessGame game;
+        try {
+            game = pgnGame.fen() == null ? new ChessGame() : ChessGame.fromFen(pgnGame.fen());
+            List<String> moves = pgnGame.moves();
+            for (int ply = 0; ply < maxPlies && ply < moves.size(); ply++) {
+                int move = San.parse(game, moves.get(ply), scratch);
+                counts.computeIfAbsent(game.positionKey(), key -> new HashMap<>()).merge(move, 1, Integer::sum);
+                game.makeMove(move);
+            }
+        } catch (IllegalArgumentException e) {
+            skipped++;
+        }
+    }
+
+    /**
+     * @return how many games have been added
+     */
+    public int games() {
+        return games;
+    }
+
+    /**
+     * @return how many games had a bad FEN or an unreadable move
+     */
+    public int skipped() {
+        return skipped;
+    }
+
+    /**
+     * Writes the book, sorted for {@link OpeningBook}'s binary search
+     *
+     * @param path     the file to write, replacing any that is there
+     * @param minGames leave out moves played in fewer games than this
+     * @return how many entries were written
+     */
+    public int write(Path path, int minGames) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        counts.forEach((key, moves) -> moves.forEach((move, count) -> {
+            if (count >= minGames) {
+                entries.add(new long[]{key, move, Math.min(count, MAX_WEIGHT)});
+            }
+        }));
+        long[][] sorted = entries.toArray(new long[0][]);
+        Arrays.sort(sorted, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        var buffer = ByteBuffer.allocate(OpeningBook.HEADER_BYTES + sorted.length * OpeningBook.ENTRY_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putLong(sorted.length);
+        for (long[] entry : sorted) {
+            buffer.putLong(entry[0]).putShort((short) entry[1]).putShort((short) entry[2]);
+        }
+        buffer.flip();
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return sorted.length;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: BookBuilder <book file> <pgn file>... [--plies n] [--min-games n]");
+            return;
+        }
+        int plies = 20;
+        int minGames = 1;
+        List<Path> pgns = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--plies") && i + 1 < args.length) {
+                plies = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--min-games") && i + 1 < args.length) {
+                minGames = Integer.parseInt(args[++i]);
+            } else {
+                pgns.add(Path.of(args[i]));
+            }
+        }
+
+        var builder = new BookBuilder(plies);
+        for (Path pgn : pgns) {
+            // SAN is plain ASCII, and Latin-1 never rejects the odd byte in a player's name
+            try (var reader = Files.newBufferedReader(pgn, StandardCharsets.ISO_8859_1)) {
+                builder.addPgn(reader);
+            }
+        }
+        int written = builder.write(Path.of(args[0]), minGames);
+        System.out.printf("%d games (%d skipped), %d book entries%n", builder.games(), builder.skipped(), written);
+    }
+}
@@ -0,0 +1,168 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveList;
+import chess.PackedMove;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * An opening book read straight from a memory-mapped file.
+ * <p>
+ * The file is a {@value #HEADER_BYTES}-byte header followed by fixed-width
+ * {@value #ENTRY_BYTES}-byte entries sorted by key and then move: the
+ * position's {@link ChessGame#positionKey()}, the move as a
+ * {@link PackedMove} in a short, and an unsigned short weight, all
+ * little-endian. A lookup binary searches the mapping for the first entry of
+ * the position and reads the run that follows, so nothing is loaded onto the
+ * heap, and every process that opens the same file shares one copy of it in
+ * the page cache. Books are written by {@link BookBuilder}.
+ * <p>
+ * Lookups only use absolute reads of the mapping, so one book can be shared
+ * by any number of threads.
+ */
+public final class OpeningBook {
+    static final int MAGIC = 0x4B424843; // "CHBK" read little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 12;
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file into memory. The file is not read until it is
+     * searched, and the mapping outlives the channel used to make it.
+     *
+     * @param path the book file
+     * @return the book
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES) {
+                throw new IOException(path + " is too short to be an opening book");
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException(path + " is larger than a single mapping can hold");
+            }
+            ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+            if (map.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not an opening book");
+            }
+            if (map.getInt(4) != VERSION) {
+                throw new IOException(path + " is book version " + map.getInt(4) + ", expected " + VERSION);
+            }
+            long count = map.getLong(8);
+            if (count < 0 || HEADER_BYTES + count * ENTRY_BYTES != length) {
+                throw new IOException(path + " has " + count + " entries but " + length + " bytes");
+            }
+            return new OpeningBook(map, (int) count);
+        }
+    }
+
+    /**
+     * @return how many entries the book holds
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the book moves for a position. Moves that are not legal in it,
+     * which can only come from two positions sharing a key, are left out.
+     *
+     * @param game the position to look up
+     * @return the moves with their weights, in the order they are stored, or
+     * an empty list if the position is not in the book
+     */
+    public List<BookMove> lookup(ChessGame game) {
+        long key = game.positionKey();
+        int i = firstIndex(key);
+        if (i == size || keyAt(i) != key) {
+            return List.of();
+        }
+        var legal = new MoveList();
+        game.teamValidMoves(game.getTeamTurn(), legal);
+        List<BookMove> moves = new ArrayList<>();
+        for (; i < size && keyAt(i) == key; i++) {
+            int move = moveAt(i);
+            if (legal.contains(move)) {
+                moves.add(new BookMove(PackedMove.toChessMove(move), weightAt(i)));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Picks a book move at random, with each move's chance in proportion to
+     * its weight
+     *
+     * @param game   the position to pick a move in
+     * @param random where to draw the choice from
+     * @return the chosen move, or null if the position is not in the book
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = lookup(game);
+        long total = 0;
+        for (BookMove move : moves) {
+            total += move.weight();
+        }
+        if (total == 0) {
+            return null;
+        }
+        long target = random.nextLong(total);
+        for (BookMove move : moves) {
+            target -= move.weight();
+            if (target < 0) {
+                return move.move();
+            }
+        }
+        throw new AssertionError("weights changed while picking");
+    }
+
+    /**
+     * @return the index of the first entry whose key is at least the given
+     * one, or the size if there is none
+     */
+    private int firstIndex(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(HEADER_BYTES + index * ENTRY_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return entries.getShort(HEADER_BYTES + index * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weightAt(int index) {
+        return entries.getShort(HEADER_BYTES + index * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+}
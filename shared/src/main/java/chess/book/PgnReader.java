@@ -0,0 +1,148 @@
+package chess.book;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the games of a PGN file one at a time.
+ * <p>
+ * Only what a book needs is kept: the main line's moves and the starting
+ * position if the game gives one in a FEN tag. Other tags, comments, NAGs,
+ * move numbers and variations are skipped.
+ */
+final class PgnReader {
+    /**
+     * One game's starting position and moves
+     *
+     * @param fen   the starting position, or null for the usual start
+     * @param moves the main line in SAN
+     */
+    record Game(String fen, List<String> moves) {
+    }
+
+    private final Reader in;
+    private int peeked = -2;
+
+    /**
+     * @param in the PGN text; wrap files in a buffered reader, since this
+     *           reads a character at a time
+     */
+    PgnReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * @return the next game, or null once the input is used up
+     */
+    Game next() throws IOException {
+        String fen = null;
+        List<String> moves = new ArrayList<>();
+        boolean started = false;
+        var token = new StringBuilder();
+
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                return started ? new Game(fen, moves) : null;
+            }
+            if (c == '[') {
+                if (!moves.isEmpty()) {
+                    unread(c); // a tag after moves starts the next game
+                    return new Game(fen, moves);
+                }
+                started = true;
+                String tag = readUntil(']');
+                if (tag.startsWith("FEN ")) {
+                    int open = tag.indexOf('"');
+                    int close = tag.lastIndexOf('"');
+                    if (open >= 0 && close > open) {
+                        fen = tag.substring(open + 1, close);
+                    }
+                }
+            } else if (c == '{') {
+                readUntil('}');
+            } else if (c == ';') {
+                readUntil('\n');
+            } else if (c == '(') {
+                skipVariation();
+            } else if (!Character.isWhitespace(c)) {
+                started = true;
+                token.setLength(0);
+                token.append((char) c);
+                while ((c = read()) >= 0 && !Character.isWhitespace(c) && "{}();[".indexOf(c) < 0) {
+                    token.append((char) c);
+                }
+                if (c >= 0) {
+                    unread(c);
+                }
+                String text = token.toString();
+                if (isResult(text)) {
+                    return new Game(fen, moves);
+                }
+                String move = stripMoveNumber(text);
+                if (!move.isEmpty() && move.charAt(0) != '$') {
+                    moves.add(move);
+                }
+            }
+        }
+    }
+
+    private static boolean isResult(String token) {
+        return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+    }
+
+    /**
+     * Turns "12.e4" or "12...e5" into the move, and a bare "12." into nothing
+     */
+    private static String stripMoveNumber(String token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i == token.length() || token.charAt(i) != '.') {
+            return token;
+        }
+        while (i < token.length() && token.charAt(i) == '.') {
+            i++;
+        }
+        return token.substring(i);
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) >= 0) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                readUntil('}');
+            }
+        }
+    }
+
+    private String readUntil(char end) throws IOException {
+        var text = new StringBuilder();
+        int c;
+        while ((c = read()) >= 0 && c != end) {
+            text.append((char) c);
+        }
+        return text.toString();
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    private void unread(int c) {
+        peeked = c;
+    }
+}
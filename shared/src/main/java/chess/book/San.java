@@ -0,0 +1,132 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.MoveList;
+import chess.PackedMove;
+
+/**
+ * Reads moves in Standard Algebraic Notation, such as "e4", "Nbd7", "exd5",
+ * "O-O" or "e8=Q+", by matching them against the legal moves of the
+ * position. Check and annotation marks are ignored.
+ */
+final class San {
+    private San() {
+    }
+
+    /**
+     * @param game  the position the move is played in
+     * @param san   the move text
+     * @param moves scratch list for the legal moves, so repeated calls do
+     *              not allocate
+     * @return the move as a {@link PackedMove}
+     * @throws IllegalArgumentException if the text is not a legal move in
+     *                                  the position, or is ambiguous
+     */
+    static int parse(ChessGame game, String san, MoveList moves) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String text = san.substring(0, end);
+        game.teamValidMoves(game.getTeamTurn(), moves);
+
+        if (text.equals("O-O") || text.equals("0-0")) {
+            return castle(game, san, moves, 2);
+        }
+        if (text.equals("O-O-O") || text.equals("0-0-0")) {
+            return castle(game, san, moves, -2);
+        }
+
+        int i = 0;
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (!text.isEmpty() && "KQRBN".indexOf(text.charAt(0)) >= 0) {
+            type = pieceType(text.charAt(0));
+            i++;
+        }
+
+        // "e8=Q", or "e8Q" without the equals sign
+        ChessPiece.PieceType promotion = null;
+        int squaresEnd = text.length();
+        if (type == ChessPiece.PieceType.PAWN && squaresEnd > 0
+                && "QRBN".indexOf(text.charAt(squaresEnd - 1)) >= 0) {
+            promotion = pieceType(text.charAt(squaresEnd - 1));
+            squaresEnd--;
+            if (squaresEnd > 0 && text.charAt(squaresEnd - 1) == '=') {
+                squaresEnd--;
+            }
+        }
+
+        // what is left is [from file][from row][x]<to file><to row>
+        if (squaresEnd - i < 2) {
+            throw invalid(san, "missing destination square");
+        }
+        int to = square(san, text.charAt(squaresEnd - 2), text.charAt(squaresEnd - 1));
+        int fromColumn = 0;
+        int fromRow = 0;
+        for (int j = i; j < squaresEnd - 2; j++) {
+            char c = text.charAt(j);
+            if (c >= 'a' && c <= 'h') {
+                fromColumn = c - 'a' + 1;
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '0';
+            } else if (c != 'x' && c != ':') {
+                throw invalid(san, "unexpected '" + c + "'");
+            }
+        }
+
+        int found = PackedMove.NONE;
+        for (int k = 0; k < moves.size(); k++) {
+            int move = moves.get(k);
+            int from = PackedMove.from(move);
+            if (PackedMove.to(move) != to || PackedMove.promotion(move) != promotion
+                    || game.getBoard().getPiece(from).getPieceType() != type
+                    || (fromColumn != 0 && (from & 7) + 1 != fromColumn)
+                    || (fromRow != 0 && (from >>> 3) + 1 != fromRow)) {
+                continue;
+            }
+            if (found != PackedMove.NONE) {
+                throw invalid(san, "ambiguous move");
+            }
+            found = move;
+        }
+        if (found == PackedMove.NONE) {
+            throw invalid(san, "not a legal move in " + game.toFen());
+        }
+        return found;
+    }
+
+    private static int castle(ChessGame game, String san, MoveList moves, int step) {
+        for (int k = 0; k < moves.size(); k++) {
+            int move = moves.get(k);
+            int from = PackedMove.from(move);
+            if (PackedMove.to(move) - from == step
+                    && game.getBoard().getPiece(from).getPieceType() == ChessPiece.PieceType.KING) {
+                return move;
+            }
+        }
+        throw invalid(san, "castling is not legal in " + game.toFen());
+    }
+
+    private static int square(String san, char file, char row) {
+        if (file < 'a' || file > 'h' || row < '1' || row > '8') {
+            throw invalid(san, "bad destination square");
+        }
+        return (row - '1') * 8 + (file - 'a');
+    }
+
+    private static ChessPiece.PieceType pieceType(char letter) {
+        return switch (letter) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> throw new IllegalArgumentException("unknown piece '" + letter + "'");
+        };
+    }
+
+    private static IllegalArgumentException invalid(String san, String reason) {
+        return new IllegalArgumentException("invalid move \"" + san + "\": " + reason);
+    }
+}
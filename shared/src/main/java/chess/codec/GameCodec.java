@@ -0,0 +1,265 @@
+package chess.codec;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MoveList;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A compact, versioned binary form of a {@link ChessGame}, for storage and
+ * for sending games over the wire.
+ * <p>
+ * Version {@value #VERSION} lays a game out as:
+ * <ul>
+ *     <li>1 byte, the version</li>
+ *     <li>32 bytes of board, one nibble per square from a1 to h8, the even
+ *     square in the low nibble: 0 for empty, otherwise 1 plus the piece's
+ *     color ordinal times 6 plus its type ordinal</li>
+ *     <li>1 byte, the side to move as its ordinal</li>
+ *     <li>1 byte of flags: the castling rights in bits 0-3, whether there is
+ *     an en passant square in bit 4 and its file in bits 5-7</li>
+ *     <li>the halfmove clock and fullmove number as varints</li>
+ *     <li>a varint count of earlier position keys, then each key as 8
+ *     little-endian bytes, so repetitions still count after a round
+ *     trip</li>
+ *     <li>a varint count of moves, then each {@link chess.PackedMove} as a
+ *     varint. The move list is optional and its count is 0 without one.</li>
+ * </ul>
+ * Varints hold 7 bits per byte, lowest first, with the top bit set on every
+ * byte but the last. A game that has just started takes 39 bytes.
+ * <p>
+ * Encoding writes straight into the caller's buffer and allocates nothing.
+ * Decoding allocates only the game it returns. Neither depends on the
+ * buffer's byte order.
+ */
+public final class GameCodec {
+    public static final byte VERSION = 1;
+
+    private static final int BOARD_BYTES = 32;
+    private static final int EN_PASSANT = 0x10;
+    private static final int MAX_VARINT_BYTES = 5;
+    private static final int MAX_KEYS = 128;
+
+    /**
+     * Bytes a game takes at most without a move list
+     */
+    public static final int MAX_BYTES = 1 + BOARD_BYTES + 2 + 3 * MAX_VARINT_BYTES + MAX_KEYS * Long.BYTES;
+
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+
+    /**
+     * Pieces by nibble, with null for an empty square
+     */
+    private static final ChessPiece[] PIECES = new ChessPiece[13];
+
+    static {
+        for (ChessGame.TeamColor color : COLORS) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                PIECES[nibble(ChessPiece.of(color, type))] = ChessPiece.of(color, type);
+            }
+        }
+    }
+
+    private GameCodec() {
+    }
+
+    /**
+     * @param moves how many moves go in the move list
+     * @return the most bytes a game with that many moves can take
+     */
+    public static int maxBytes(int moves) {
+        return MAX_BYTES + moves * 3;
+    }
+
+    /**
+     * Writes a game without a move list
+     *
+     * @return the number of bytes written
+     * @throws java.nio.BufferOverflowException if the buffer is too small,
+     *                                          which never happens with
+     *                                          {@link #MAX_BYTES} left
+     */
+    public static int encode(ChessGame game, ByteBuffer out) {
+        return encode(game, null, out);
+    }
+
+    /**
+     * Writes a game and its moves at the buffer's position
+     *
+     * @param game  the game to write
+     * @param moves the moves that led to it, or null for none
+     * @param out   where to write, with at least {@link #maxBytes(int)}
+     *              bytes left to be sure it fits
+     * @return the number of bytes written
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     */
+    public static int encode(ChessGame game, MoveList moves, ByteBuffer out) {
+        int start = out.position();
+        out.put(VERSION);
+
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < 64; square += 2) {
+            out.put((byte) (nibble(board.getPiece(square)) | nibble(board.getPiece(square + 1)) << 4));
+        }
+
+        out.put((byte) game.getTeamTurn().ordinal());
+        int flags = game.getCastlingRights();
+        int enPassant = game.getEnPassantSquare();
+        if (enPassant >= 0) {
+            flags |= EN_PASSANT | (enPassant & 7) << 5;
+        }
+        out.put((byte) flags);
+        putVarint(out, game.getHalfmoveClock());
+        putVarint(out, game.getFullmoveNumber());
+
+        int keys = game.repetitionKeyCount();
+        putVarint(out, keys);
+        boolean little = out.order() == ByteOrder.LITTLE_ENDIAN;
+        for (int i = 0; i < keys; i++) {
+            long key = game.repetitionKey(i);
+            out.putLong(little ? key : Long.reverseBytes(key));
+        }
+
+        int count = moves == null ? 0 : moves.size();
+        putVarint(out, count);
+        for (int i = 0; i < count; i++) {
+            putVarint(out, moves.get(i));
+        }
+        return out.position() - start;
+    }
+
+    /**
+     * Writes a game without a move list into an array of just the right size
+     */
+    public static byte[] toBytes(ChessGame game) {
+        var buffer = ByteBuffer.allocate(MAX_BYTES);
+        encode(game, buffer);
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @param bytes a game from {@link #toBytes(ChessGame)}
+     * @return the game
+     * @throws IllegalArgumentException if the bytes are not a game
+     */
+    public static ChessGame fromBytes(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes), null);
+    }
+
+    /**
+     * Reads a game, skipping any move list
+     *
+     * @throws IllegalArgumentException if the buffer does not hold a game
+     */
+    public static ChessGame decode(ByteBuffer in) {
+        return decode(in, null);
+    }
+
+    /**
+     * Reads a game from the buffer's position, leaving the position just
+     * past it
+     *
+     * @param in    where to read
+     * @param moves receives the move list if not null
+     * @return the game
+     * @throws IllegalArgumentException if the buffer does not hold a game
+     */
+    public static ChessGame decode(ByteBuffer in, MoveList moves) {
+        try {
+            int version = in.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("unsupported game encoding version " + version);
+            }
+
+            var board = new ChessBoard();
+            for (int square = 0; square < 64; square += 2) {
+                int pair = in.get() & 0xFF;
+                place(board, square, pair & 0xF);
+                place(board, square + 1, pair >>> 4);
+            }
+
+            int turn = in.get();
+            if (turn < 0 || turn >= COLORS.length) {
+                throw new IllegalArgumentException("bad side to move " + turn);
+            }
+            int flags = in.get() & 0xFF;
+            int enPassant = -1;
+            if ((flags & EN_PASSANT) != 0) {
+                // the square a pawn just skipped sits on the mover's third rank
+                enPassant = (turn == ChessGame.TeamColor.WHITE.ordinal() ? 40 : 16) + (flags >>> 5);
+            }
+            int halfmoveClock = getVarint(in);
+            int fullmoveNumber = getVarint(in);
+            if (halfmoveClock < 0) {
+                throw new IllegalArgumentException("bad halfmove clock " + halfmoveClock);
+            }
+            if (fullmoveNumber < 1) {
+                throw new IllegalArgumentException("fullmove number starts at 1");
+            }
+            var game = new ChessGame(board, COLORS[turn], flags & ChessGame.ALL_CASTLING, enPassant,
+                    halfmoveClock, fullmoveNumber);
+
+            int keys = getVarint(in);
+            boolean little = in.order() == ByteOrder.LITTLE_ENDIAN;
+            for (int i = 0; i < keys; i++) {
+                long key = in.getLong();
+                game.addRepetitionKey(little ? key : Long.reverseBytes(key));
+            }
+
+            int count = getVarint(in);
+            for (int i = 0; i < count; i++) {
+                int move = getVarint(in);
+                if (moves != null) {
+                    moves.add(move);
+                }
+            }
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("game encoding is cut short", e);
+        }
+    }
+
+    private static int nibble(ChessPiece piece) {
+        if (piece == null) {
+            return 0;
+        }
+        return 1 + piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal();
+    }
+
+    private static void place(ChessBoard board, int square, int nibble) {
+        if (nibble == 0) {
+            return;
+        }
+        if (nibble >= PIECES.length) {
+            throw new IllegalArgumentException("bad piece " + nibble + " on square " + square);
+        }
+        board.addPiece(ChessPosition.of(square / 8 + 1, square % 8 + 1), PIECES[nibble]);
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 7 * MAX_VARINT_BYTES; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint runs past " + MAX_VARINT_BYTES + " bytes");
+    }
+}
@@ -0,0 +1,61 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.util.List;
+
+/**
+ * Measures how search speed scales with threads by searching the same
+ * positions for the same time at each thread count. Run it with
+ * {@code java -cp shared/target/classes chess.engine.Bench [millis per
+ * position] [max threads]}.
+ */
+public final class Bench {
+    /**
+     * Opening, middlegame and endgame positions, mostly the standard perft set
+     */
+    static final List<String> POSITIONS = List.of(
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+
+    private Bench() {
+    }
+
+    /**
+     * Searches every bench position with a fresh engine and table
+     *
+     * @param threads how many threads to search with
+     * @param millis  how long to search each position
+     * @return nodes per second over all the positions
+     */
+    public static double nodesPerSecond(int threads, long millis) {
+        long nodes = 0;
+        long elapsed = 0;
+        for (String fen : POSITIONS) {
+            var engine = new Engine(threads, new TranspositionTable(64));
+            SearchResult result = engine.search(ChessGame.fromFen(fen), SearchLimits.millis(millis));
+            nodes += result.nodes();
+            elapsed += result.elapsedNanos();
+        }
+        return nodes * 1e9 / elapsed;
+    }
+
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 2000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        double single = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double nps = nodesPerSecond(threads, millis);
+            if (threads == 1) {
+                single = nps;
+            }
+            System.out.printf("%d thread%s: %.0f nodes/s (%.2fx)%n", threads, threads == 1 ? "" : "s", nps,
+                    nps / single);
+        }
+    }
+}
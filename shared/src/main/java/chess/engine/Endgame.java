@@ -0,0 +1,127 @@
+package chess.engine;
+
+import chess.ChessPiece;
+
+import java.util.Arrays;
+
+/**
+ * The endgames covered by {@link Tablebase}: a king and one or two pieces
+ * against a lone king.
+ * <p>
+ * Positions are indexed with the stronger side as white, and with the
+ * board's symmetries used to move the strong king into a corner of the
+ * board: a pawnless position has its king in the a1-d1-d4 triangle, and a
+ * pawn position has its king on files a to d. Every position that remains
+ * has exactly one slot, so the index is collision-free and needs no key
+ * check.
+ */
+public enum Endgame {
+    KQK(ChessPiece.PieceType.QUEEN),
+    KRK(ChessPiece.PieceType.ROOK),
+    KPK(ChessPiece.PieceType.PAWN),
+    KBNK(ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT);
+
+    /**
+     * The a1-d1-d4 triangle in index order
+     */
+    static final int[] TRIANGLE = {0, 1, 2, 3, 9, 10, 11, 18, 19, 27};
+    private static final int[] TRIANGLE_INDEX = new int[64];
+
+    static {
+        Arrays.fill(TRIANGLE_INDEX, -1);
+        for (int i = 0; i < TRIANGLE.length; i++) {
+            TRIANGLE_INDEX[TRIANGLE[i]] = i;
+        }
+    }
+
+    private final ChessPiece.PieceType[] pieces;
+
+    Endgame(ChessPiece.PieceType... pieces) {
+        this.pieces = pieces;
+    }
+
+    /**
+     * @return the strong side's pieces besides its king, in index order
+     */
+    ChessPiece.PieceType piece(int i) {
+        return pieces[i];
+    }
+
+    int pieceCount() {
+        return pieces.length;
+    }
+
+    boolean hasPawn() {
+        return pieces[0] == ChessPiece.PieceType.PAWN;
+    }
+
+    /**
+     * @return squares the strong king is indexed on
+     */
+    int kingSquares() {
+        return hasPawn() ? 32 : TRIANGLE.length;
+    }
+
+    /**
+     * @return how many positions the table holds, for both sides to move
+     */
+    public int size() {
+        int size = 2 * kingSquares() * 64;
+        for (int i = 0; i < pieces.length; i++) {
+            size *= 64;
+        }
+        return size;
+    }
+
+    /**
+     * @return the strong king square for a king index, the inverse of the
+     * first step of {@link #index}
+     */
+    int kingSquare(int kingIndex) {
+        return hasPawn() ? (kingIndex >>> 2) * 8 + (kingIndex & 3) : TRIANGLE[kingIndex];
+    }
+
+    /**
+     * Finds a position's slot, first moving it onto the indexed part of the
+     * board
+     *
+     * @param weakToMove 0 if the strong side is to move, 1 if the lone king is
+     * @param p2         the second piece's square, ignored for three pieces
+     */
+    int index(int weakToMove, int strongKing, int weakKing, int p1, int p2) {
+        if ((strongKing & 7) > 3) {
+            strongKing ^= 7;
+            weakKing ^= 7;
+            p1 ^= 7;
+            p2 ^= 7;
+        }
+        int index;
+        if (hasPawn()) {
+            index = weakToMove * 32 + (strongKing >>> 3) * 4 + (strongKing & 7);
+        } else {
+            if (strongKing >>> 3 > 3) {
+                strongKing ^= 56;
+                weakKing ^= 56;
+                p1 ^= 56;
+                p2 ^= 56;
+            }
+            if (strongKing >>> 3 > (strongKing & 7)) {
+                strongKing = transpose(strongKing);
+                weakKing = transpose(weakKing);
+                p1 = transpose(p1);
+                p2 = transpose(p2);
+            }
+            index = weakToMove * TRIANGLE.length + TRIANGLE_INDEX[strongKing];
+        }
+        index = (index * 64 + weakKing) * 64 + p1;
+        return pieces.length == 2 ? index * 64 + p2 : index;
+    }
+
+    private static int transpose(int square) {
+        return (square & 7) * 8 + (square >>> 3);
+    }
+
+    String fileName() {
+        return name() + ".tb";
+    }
+}
@@ -0,0 +1,186 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Finds good moves for bots and hints with an alpha-beta search.
+ * <p>
+ * The search deepens one ply at a time until it runs out of depth, nodes or
+ * time, and reports the best move of the deepest iteration that finished
+ * along with the line it expects. Positions are judged by
+ * {@link Evaluation}. The engine keeps its {@link TranspositionTable} from
+ * one search to the next, so searching the moves of one game in turn reuses
+ * what earlier searches learned.
+ * <p>
+ * With more than one thread the search is a Lazy SMP search: helper threads
+ * search the same position on their own copies of the game, sharing only
+ * the table and a stop flag. Half of them run a ply ahead of the main
+ * thread, and what any thread stores cuts off or orders moves for the
+ * others. The main thread's limits decide when everyone stops, and the
+ * result comes from whichever thread finished the deepest iteration. An
+ * engine runs one search at a time.
+ * <p>
+ * Given a {@link Tablebase}, the engine plays covered endgames straight from
+ * it without searching, and the search scores any covered position it
+ * reaches exactly.
+ */
+public class Engine {
+    /**
+     * Table size used when none is given
+     */
+    public static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private final int threads;
+    private final TranspositionTable table;
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private volatile Tablebase tablebase;
+
+    /**
+     * Creates a single-threaded engine with a table of the default size
+     */
+    public Engine() {
+        this(1);
+    }
+
+    /**
+     * @param threads how many threads each search runs on
+     */
+    public Engine(int threads) {
+        this(threads, new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * @param threads how many threads each search runs on
+     * @param table   the cache of searched positions to use
+     */
+    public Engine(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("an engine needs at least one thread");
+        }
+        this.threads = threads;
+        this.table = table;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * @param tablebase endgames to play perfectly, or null to search them
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Searches a position for the best move. The game is copied first, so it
+     * is never changed and other threads may keep reading it. A node budget
+     * counts the main thread's nodes only.
+     *
+     * @param game   the position to search
+     * @param limits when to stop
+     * @return the best move found and the line behind it, with the nodes of
+     * every thread added up
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        long start = System.nanoTime();
+        Tablebase tablebase = this.tablebase;
+        if (tablebase != null) {
+            SearchResult known = fromTablebase(tablebase, game, start);
+            if (known != null) {
+                return known;
+            }
+        }
+        // a stop that arrived after the last search returned was meant for that one
+        stop.set(false);
+        table.newSearch();
+
+        var helpers = new Searcher[threads - 1];
+        var helperResults = new SearchResult[threads - 1];
+        var helperThreads = new Thread[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            int id = i;
+            helpers[i] = new Searcher(new ChessGame(game), table, tablebase, stop, i + 1);
+            helperThreads[i] = new Thread(() -> helperResults[id] = helpers[id].search(limits),
+                    "engine-helper-" + (i + 1));
+            helperThreads[i].setDaemon(true);
+            helperThreads[i].start();
+        }
+
+        var main = new Searcher(new ChessGame(game), table, tablebase, stop, 0);
+        SearchResult best;
+        try {
+            best = main.search(limits);
+        } finally {
+            stop.set(true);
+            for (Thread thread : helperThreads) {
+                joinQuietly(thread);
+            }
+        }
+
+        long nodes = main.nodes();
+        main.addTableCounts();
+        for (int i = 0; i < helpers.length; i++) {
+            nodes += helpers[i].nodes();
+            helpers[i].addTableCounts();
+            SearchResult result = helperResults[i];
+            // a helper only wins with a deeper finished iteration that found a move
+            if (result != null && result.depth() > best.depth() && result.bestMove() != null) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.bestMove(), best.principalVariation(), best.score(), best.depth(), nodes,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * @return the tablebase's move as a one-ply result, or null if the
+     * position is not covered
+     */
+    private static SearchResult fromTablebase(Tablebase tablebase, ChessGame game, long start) {
+        TablebaseResult known = tablebase.probe(game);
+        ChessMove move = known == null ? null : tablebase.bestMove(game);
+        if (move == null) {
+            return null;
+        }
+        int score = switch (known.wdl()) {
+            case WIN -> Searcher.MATE - known.pliesToMate();
+            case DRAW -> 0;
+            case LOSS -> -Searcher.MATE + known.pliesToMate();
+        };
+        return new SearchResult(move, List.of(move), score, 1, 0, System.nanoTime() - start);
+    }
+
+    private static void joinQuietly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Asks a running search to stop and return the deepest result it has
+     * finished. Safe to call from any thread. A stop that comes when no
+     * search is running, such as one racing a search that has just returned,
+     * does nothing.
+     */
+    public void stop() {
+        stop.set(true);
+    }
+}
@@ -0,0 +1,145 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Static evaluation of a position: material, piece-square bonuses and pawn
+ * structure, each with a middlegame and an endgame value that are blended by
+ * the game phase.
+ * <p>
+ * The board keeps the material and piece-square totals up to date as pieces
+ * move (see {@link ChessBoard#getMidgameScore()}), so they cost two field
+ * reads. Pawn structure only changes when pawns do, so searches look it up
+ * in a {@link PawnTable} by the board's pawn key rather than working it out
+ * again at every node.
+ */
+public final class Evaluation {
+    /**
+     * Centipawn value of each piece for ordering captures, indexed by
+     * {@link ChessPiece.PieceType} ordinal. The king is never traded, so it
+     * is worth nothing here.
+     */
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private static final int DOUBLED_MIDGAME = 10;
+    private static final int DOUBLED_ENDGAME = 20;
+    private static final int ISOLATED_MIDGAME = 10;
+    private static final int ISOLATED_ENDGAME = 15;
+    /**
+     * Passed pawn bonus by how many rows the pawn has advanced
+     */
+    private static final int[] PASSED_MIDGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 100, 150, 0};
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    /**
+     * Squares that must be free of enemy pawns for a pawn to be passed,
+     * indexed by color ordinal and square
+     */
+    private static final long[][] PASSED_SPANS = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = Bitboards.FILE_A << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0L) | (file < 7 ? FILES[file + 1] : 0L);
+        }
+        for (int square = 0; square < 64; square++) {
+            int file = square & 7;
+            long span = FILES[file] | ADJACENT_FILES[file];
+            int row = square >>> 3;
+            long ahead = row == 7 ? 0L : -1L << ((row + 1) * 8);
+            long behind = row == 0 ? 0L : -1L >>> ((8 - row) * 8);
+            PASSED_SPANS[0][square] = span & ahead;
+            PASSED_SPANS[1][square] = span & behind;
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * Evaluates a position, working out the pawn structure from scratch
+     *
+     * @return the score of the position in centipawns, from the point of view
+     * of the side to move
+     */
+    public static int evaluate(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        return evaluate(game, pawnStructure(board));
+    }
+
+    /**
+     * Evaluates a position, taking the pawn structure from a cache
+     *
+     * @return the score of the position in centipawns, from the point of view
+     * of the side to move
+     */
+    public static int evaluate(ChessGame game, PawnTable pawns) {
+        return evaluate(game, pawns.probe(game.getBoard()));
+    }
+
+    private static int evaluate(ChessGame game, long pawnScore) {
+        ChessBoard board = game.getBoard();
+        int phase = Math.min(board.getPhase(), ChessBoard.MAX_PHASE);
+        int midgame = board.getMidgameScore() + midgame(pawnScore);
+        int endgame = board.getEndgameScore() + endgame(pawnScore);
+        int score = (midgame * phase + endgame * (ChessBoard.MAX_PHASE - phase)) / ChessBoard.MAX_PHASE;
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * Scores doubled, isolated and passed pawns
+     *
+     * @return white's score minus black's, with the middlegame value in the
+     * high 32 bits and the endgame value in the low 32; see
+     * {@link #midgame} and {@link #endgame}
+     */
+    static long pawnStructure(ChessBoard board) {
+        long white = board.getBitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        long black = board.getBitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        int midgame = 0;
+        int endgame = 0;
+
+        for (int file = 0; file < 8; file++) {
+            int whiteCount = Long.bitCount(white & FILES[file]);
+            int blackCount = Long.bitCount(black & FILES[file]);
+            int doubled = Math.max(whiteCount - 1, 0) - Math.max(blackCount - 1, 0);
+            midgame -= doubled * DOUBLED_MIDGAME;
+            endgame -= doubled * DOUBLED_ENDGAME;
+            int isolated = ((white & ADJACENT_FILES[file]) == 0 ? whiteCount : 0)
+                    - ((black & ADJACENT_FILES[file]) == 0 ? blackCount : 0);
+            midgame -= isolated * ISOLATED_MIDGAME;
+            endgame -= isolated * ISOLATED_ENDGAME;
+        }
+
+        for (long pawns = white; pawns != 0; pawns &= pawns - 1) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            if ((PASSED_SPANS[0][square] & black) == 0) {
+                midgame += PASSED_MIDGAME[square >>> 3];
+                endgame += PASSED_ENDGAME[square >>> 3];
+            }
+        }
+        for (long pawns = black; pawns != 0; pawns &= pawns - 1) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            if ((PASSED_SPANS[1][square] & white) == 0) {
+                midgame -= PASSED_MIDGAME[7 - (square >>> 3)];
+                endgame -= PASSED_ENDGAME[7 - (square >>> 3)];
+            }
+        }
+        return (long) midgame << 32 | (endgame & 0xFFFFFFFFL);
+    }
+
+    static int midgame(long score) {
+        return (int) (score >> 32);
+    }
+
+    static int endgame(long score) {
+        return (int) score;
+    }
+}
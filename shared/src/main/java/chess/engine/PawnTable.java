@@ -0,0 +1,46 @@
+package chess.engine;
+
+import chess.ChessBoard;
+
+/**
+ * A small cache of pawn structure scores, keyed by
+ * {@link ChessBoard#getPawnKey()}.
+ * <p>
+ * Most moves in a search leave the pawns alone, so nearly every lookup is a
+ * hit. Each search thread keeps its own table, so there is no locking; a
+ * collision simply overwrites the older entry. An empty slot holds key 0
+ * and score 0, which is exactly right for a board without pawns.
+ */
+public final class PawnTable {
+    private final long[] keys;
+    private final long[] scores;
+    private final int mask;
+
+    /**
+     * @param entries how many structures to cache, rounded down to a power
+     *                of two
+     */
+    public PawnTable(int entries) {
+        if (entries < 1) {
+            throw new IllegalArgumentException("a pawn table needs at least one entry");
+        }
+        int size = Integer.highestOneBit(entries);
+        keys = new long[size];
+        scores = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return the packed pawn structure score of the board, see
+     * {@link Evaluation#pawnStructure}
+     */
+    long probe(ChessBoard board) {
+        long key = board.getPawnKey();
+        int index = (int) key & mask;
+        if (keys[index] != key) {
+            keys[index] = key;
+            scores[index] = Evaluation.pawnStructure(board);
+        }
+        return scores[index];
+    }
+}
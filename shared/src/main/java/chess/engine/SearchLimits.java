@@ -0,0 +1,47 @@
+package chess.engine;
+
+/**
+ * How far a search may go. The search stops at whichever limit it reaches
+ * first, but always finishes at least a depth one search so it has a move
+ * to return.
+ *
+ * @param depth  the deepest iteration to search, in plies
+ * @param nodes  how many positions may be visited
+ * @param millis how many milliseconds may pass
+ */
+public record SearchLimits(int depth, long nodes, long millis) {
+    /**
+     * Deepest search the engine supports
+     */
+    public static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("depth must be between 1 and " + MAX_DEPTH);
+        }
+        if (nodes < 1 || millis < 1) {
+            throw new IllegalArgumentException("node and time budgets must be positive");
+        }
+    }
+
+    /**
+     * @return limits that search to a fixed depth however long it takes
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return limits that search as deep as a time budget allows
+     */
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, millis);
+    }
+
+    /**
+     * @return limits that search as deep as a node budget allows
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, nodes, Long.MAX_VALUE);
+    }
+}
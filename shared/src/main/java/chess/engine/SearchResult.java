@@ -0,0 +1,48 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * What a search found
+ *
+ * @param bestMove           the move to play, or null if the side to move has
+ *                           no legal move
+ * @param principalVariation the line the search expects, starting with the
+ *                           best move
+ * @param score              centipawns from the point of view of the side to
+ *                           move; see {@link #isMate()}
+ * @param depth              the deepest iteration that finished
+ * @param nodes              positions visited
+ * @param elapsedNanos       how long the search took
+ */
+public record SearchResult(ChessMove bestMove, List<ChessMove> principalVariation, int score, int depth,
+                           long nodes, long elapsedNanos) {
+
+    /**
+     * @return true if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Searcher.MATE_BOUND;
+    }
+
+    /**
+     * @return how many moves until mate, positive if the side to move mates
+     * and negative if it gets mated, or 0 if the score is not a mate
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Searcher.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    public double nodesPerSecond() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return nodes * 1e9 / elapsedNanos;
+    }
+}
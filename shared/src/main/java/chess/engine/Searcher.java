@@ -0,0 +1,432 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveList;
+import chess.PackedMove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One thread's iterative-deepening alpha-beta search over its own copy of a
+ * game.
+ * <p>
+ * Every ply has its own move list and score array, allocated once, and moves
+ * are made and taken back in place, so the search itself does not allocate.
+ * Results are cached in a {@link TranspositionTable}, which may be shared
+ * with other searchers. Moves are tried in this order: the previous
+ * iteration's principal variation, then the table's best move, then
+ * captures and promotions by most valuable victim and least valuable
+ * attacker, then the two killer moves of the ply, and then quiet moves by
+ * how often they have caused cutoffs before (the history heuristic).
+ */
+final class Searcher {
+    static final int INFINITY = 32000;
+    static final int MATE = 31000;
+
+    private static final int MAX_PLY = SearchLimits.MAX_DEPTH + 64;
+    private static final int CHECK_EVERY = 1024;
+
+    private static final int PV_ORDER = 4_000_000;
+    private static final int TABLE_ORDER = 3_000_000;
+    private static final int CAPTURE_ORDER = 2_000_000;
+    private static final int KILLER_ORDER = 1_000_000;
+
+    /**
+     * Attacker rank for MVV-LVA, indexed by piece type ordinal, so that a
+     * pawn taking a piece is tried before a queen taking the same piece
+     */
+    private static final int[] ATTACKER_RANK = {6, 5, 3, 2, 4, 1};
+
+    /**
+     * Scores past this are mates, which the table stores relative to the
+     * position rather than the root. Tablebase mates can lie further away
+     * than the search reaches, so there is room for them on top of the
+     * deepest ply.
+     */
+    static final int MATE_BOUND = MATE - 2 * MAX_PLY;
+
+    private final ChessGame game;
+    private final TranspositionTable table;
+    private final Tablebase tablebase;
+    private final AtomicBoolean stop;
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final int[][] moveOrder = new int[MAX_PLY][MoveList.DEFAULT_CAPACITY];
+    private final PawnTable pawns = new PawnTable(1 << 14);
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[2][64 * 64];
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private int[] previousPv = new int[0];
+    private boolean followPv;
+
+    private long nodes;
+    private long tableProbes;
+    private long tableHits;
+    private long tableCollisions;
+    private long nodeLimit;
+    private long deadline;
+    private final boolean helper;
+    private final int firstDepth;
+    private int rootDepth;
+    private boolean aborted;
+
+    /**
+     * @param game  the game to search, which this searcher will make moves on
+     * @param table     where to cache results
+     * @param tablebase  endgames to look up instead of searching, or null
+     * @param stop      set from another thread to end the search early
+     * @param id        0 for the main search thread, or the number of a
+     *                  helper. Every other helper starts a ply deeper, so the
+     *                  threads spread over two depths at once and fill the
+     *                  shared table for each other instead of repeating the
+     *                  same work.
+     */
+    Searcher(ChessGame game, TranspositionTable table, Tablebase tablebase, AtomicBoolean stop, int id) {
+        this.game = game;
+        this.table = table;
+        this.tablebase = tablebase;
+        this.stop = stop;
+        this.helper = id > 0;
+        this.firstDepth = 1 + (id & 1);
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            moveLists[ply] = new MoveList();
+        }
+    }
+
+    /**
+     * @return the deepest finished iteration, or null if the search was
+     * stopped before one finished
+     */
+    SearchResult search(SearchLimits limits) {
+        long start = System.nanoTime();
+        long budget = limits.millis() > Long.MAX_VALUE / 2_000_000 ? Long.MAX_VALUE / 2 : limits.millis() * 1_000_000;
+        deadline = start + budget;
+        nodeLimit = limits.nodes();
+
+        SearchResult result = null;
+        for (int depth = Math.min(firstDepth, limits.depth()); depth <= limits.depth(); depth++) {
+            rootDepth = depth;
+            followPv = true;
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (aborted) {
+                break;
+            }
+            previousPv = Arrays.copyOf(pv[0], pvLength[0]);
+            result = new SearchResult(previousPv.length == 0 ? null : PackedMove.toChessMove(previousPv[0]),
+                    toMoves(previousPv), score, depth, nodes, System.nanoTime() - start);
+            if (previousPv.length == 0 || Math.abs(score) >= MATE - depth) {
+                break; // no move to play, or a mate that deeper searches can't shorten
+            }
+        }
+        if (result == null) {
+            return null;
+        }
+        return new SearchResult(result.bestMove(), result.principalVariation(), result.score(), result.depth(),
+                nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * @return positions visited so far
+     */
+    long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Adds this searcher's table lookups to the table's totals. Call once,
+     * after the search has finished.
+     */
+    void addTableCounts() {
+        table.addCounts(tableProbes, tableHits, tableCollisions);
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if (ply > 0 && (game.isFiftyMoveRule() || game.repetitionCount() > 1)) {
+            return 0;
+        }
+        if (ply > 0 && tablebase != null
+                && Long.bitCount(game.getBoard().getOccupancy()) <= Tablebase.MAX_PIECES) {
+            int value = tablebase.probeValue(game);
+            if (value == Tablebase.DRAW) {
+                return 0;
+            }
+            if (value != 0) {
+                return value > 0 ? MATE - ply - (value - 2) : -MATE + ply + (-value - 2);
+            }
+        }
+        ChessGame.TeamColor side = game.getTeamTurn();
+        boolean inCheck = game.isInCheck(side);
+        if (inCheck) {
+            depth++; // look one ply further so a check never hides a threat past the horizon
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (++nodes % CHECK_EVERY == 0) {
+            checkLimits();
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        long key = game.positionKey();
+        long entry = table.probe(key);
+        tableProbes++;
+        if (entry != 0) {
+            tableHits++;
+        }
+        int tableMove = TranspositionTable.move(entry);
+        if (entry != 0 && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+            int score = fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        game.teamValidMoves(side, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        orderMoves(ply, moves, side, tableMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = PackedMove.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextMove(ply, moves, i);
+            boolean quiet = isQuiet(move);
+            game.makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            followPv = false;
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        if (quiet) {
+                            rememberCutoff(ply, side, move, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        if (table.store(key, bestMove, toTable(best, ply), depth, bound)) {
+            tableCollisions++;
+        }
+        return best;
+    }
+
+    /**
+     * Turns a mate score counted from the root into one counted from the
+     * current position, so it stays right wherever the position is reached
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Searches only captures and promotions until the position is quiet, so
+     * the evaluation is never taken in the middle of an exchange. A side in
+     * check has to answer it, so all of its moves are searched instead.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if (++nodes % CHECK_EVERY == 0) {
+            checkLimits();
+        }
+        if (aborted) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluation.evaluate(game, pawns);
+        }
+
+        ChessGame.TeamColor side = game.getTeamTurn();
+        MoveList moves = moveLists[ply];
+        int best;
+        if (game.isInCheck(side)) {
+            game.teamValidMoves(side, moves);
+            if (moves.isEmpty()) {
+                return -MATE + ply;
+            }
+            best = -INFINITY;
+        } else {
+            best = Evaluation.evaluate(game, pawns);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+            game.teamTacticalMoves(side, moves);
+        }
+        orderMoves(ply, moves, side, PackedMove.NONE);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextMove(ply, moves, i);
+            game.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private void checkLimits() {
+        // the main thread always finishes its first iteration so there is a move to return
+        if ((helper || rootDepth > firstDepth) && (stop.get() || nodes >= nodeLimit || System.nanoTime() >= deadline)) {
+            aborted = true;
+        }
+    }
+
+    private void orderMoves(int ply, MoveList moves, ChessGame.TeamColor side, int tableMove) {
+        if (moveOrder[ply].length < moves.size()) {
+            moveOrder[ply] = new int[moves.size()];
+        }
+        int[] order = moveOrder[ply];
+        int pvMove = followPv && ply < previousPv.length ? previousPv[ply] : PackedMove.NONE;
+        boolean foundPv = false;
+        ChessBoard board = game.getBoard();
+        int[] sideHistory = history[side.ordinal()];
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = PackedMove.from(move);
+            int to = PackedMove.to(move);
+            ChessPiece victim = board.getPiece(to);
+            ChessPiece.PieceType promotion = PackedMove.promotion(move);
+            if (move == pvMove) {
+                order[i] = PV_ORDER;
+                foundPv = true;
+            } else if (move == tableMove) {
+                order[i] = TABLE_ORDER;
+            } else if (victim != null || promotion != null || isEnPassant(move)) {
+                int gain = promotion == null ? 0 : Evaluation.PIECE_VALUES[promotion.ordinal()];
+                if (victim != null) {
+                    gain += Evaluation.PIECE_VALUES[victim.getPieceType().ordinal()];
+                } else if (promotion == null) {
+                    gain += Evaluation.PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()]; // en passant
+                }
+                order[i] = CAPTURE_ORDER + gain * 8 - ATTACKER_RANK[board.getPiece(from).getPieceType().ordinal()];
+            } else if (move == killers[ply][0]) {
+                order[i] = KILLER_ORDER + 1;
+            } else if (move == killers[ply][1]) {
+                order[i] = KILLER_ORDER;
+            } else {
+                order[i] = sideHistory[from * 64 + to];
+            }
+        }
+        if (!foundPv) {
+            followPv = false;
+        }
+    }
+
+    /**
+     * Swaps the best remaining move into place, so moves that get cut off
+     * are never sorted at all
+     */
+    private int nextMove(int ply, MoveList moves, int index) {
+        int[] order = moveOrder[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (order[i] > order[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            moves.swap(index, best);
+            int swap = order[index];
+            order[index] = order[best];
+            order[best] = swap;
+        }
+        return moves.get(index);
+    }
+
+    private boolean isQuiet(int move) {
+        return game.getBoard().getPiece(PackedMove.to(move)) == null && PackedMove.promotion(move) == null
+                && !isEnPassant(move);
+    }
+
+    private boolean isEnPassant(int move) {
+        int to = PackedMove.to(move);
+        return to == game.getEnPassantSquare()
+                && game.getBoard().getPiece(PackedMove.from(move)).getPieceType() == ChessPiece.PieceType.PAWN;
+    }
+
+    private void rememberCutoff(int ply, ChessGame.TeamColor side, int move, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] sideHistory = history[side.ordinal()];
+        int index = PackedMove.from(move) * 64 + PackedMove.to(move);
+        sideHistory[index] += depth * depth;
+        if (sideHistory[index] >= KILLER_ORDER) {
+            // keep history below the killers by halving everything once it grows too large
+            for (int i = 0; i < sideHistory.length; i++) {
+                sideHistory[i] /= 2;
+            }
+        }
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][0] = move;
+        int childLength = ply + 1 < MAX_PLY ? pvLength[ply + 1] : 0;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, childLength);
+        pvLength[ply] = childLength + 1;
+    }
+
+    private static List<ChessMove> toMoves(int[] line) {
+        List<ChessMove> moves = new ArrayList<>(line.length);
+        for (int move : line) {
+            moves.add(PackedMove.toChessMove(move));
+        }
+        return List.copyOf(moves);
+    }
+}
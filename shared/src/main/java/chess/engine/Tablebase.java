@@ -0,0 +1,204 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.MoveList;
+import chess.PackedMove;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Perfect play for the {@link Endgame}s, read from memory-mapped tables
+ * written by {@link TablebaseGenerator}.
+ * <p>
+ * Each table file is a {@value #HEADER_BYTES}-byte header followed by one
+ * byte per {@link Endgame#index}: {@link #ILLEGAL}, {@link #DRAW}, or 2 plus
+ * the plies to mate, which the strong side always delivers. A probe works
+ * out the index and reads one byte of the mapping, so it does not allocate
+ * or touch the heap, and every server process shares the tables through
+ * the page cache. Probes only read the mappings, so one tablebase can be
+ * shared by any number of threads.
+ * <p>
+ * Positions with castling rights are never in the tables. The 50-move rule
+ * is not taken into account.
+ */
+public final class Tablebase {
+    /**
+     * Most pieces, kings included, in any covered position
+     */
+    public static final int MAX_PIECES = 4;
+
+    static final int MAGIC = 0x42544843; // "CHTB" read little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final byte ILLEGAL = 0;
+    static final byte DRAW = 1;
+
+    private final ByteBuffer[] tables = new ByteBuffer[Endgame.values().length];
+
+    private Tablebase() {
+    }
+
+    /**
+     * Maps whichever table files a directory holds. Endgames without a file
+     * are simply not covered.
+     *
+     * @param directory where {@link TablebaseGenerator} wrote the tables
+     * @return the tablebase
+     * @throws IOException if a table file cannot be read or is damaged
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        var tablebase = new Tablebase();
+        for (Endgame endgame : Endgame.values()) {
+            Path path = directory.resolve(endgame.fileName());
+            if (!Files.exists(path)) {
+                continue;
+            }
+            try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() != HEADER_BYTES + (long) endgame.size()) {
+                    throw new IOException(path + " is not a complete " + endgame + " table");
+                }
+                ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION || map.getInt(8) != endgame.ordinal()) {
+                    throw new IOException(path + " is not a version " + VERSION + " " + endgame + " table");
+                }
+                tablebase.tables[endgame.ordinal()] = map;
+            }
+        }
+        return tablebase;
+    }
+
+    /**
+     * @return true if the endgame's table was found
+     */
+    public boolean covers(Endgame endgame) {
+        return tables[endgame.ordinal()] != null;
+    }
+
+    /**
+     * Looks a position up
+     *
+     * @param game the position
+     * @return the result with best play, or null if no table covers the
+     * position
+     */
+    public TablebaseResult probe(ChessGame game) {
+        int value = probeValue(game);
+        if (value == 0) {
+            return null;
+        }
+        if (value == DRAW) {
+            return new TablebaseResult(TablebaseResult.Wdl.DRAW, 0);
+        }
+        return value > 0 ? new TablebaseResult(TablebaseResult.Wdl.WIN, value - 2)
+                : new TablebaseResult(TablebaseResult.Wdl.LOSS, -value - 2);
+    }
+
+    /**
+     * Picks the move that mates fastest, or failing that draws, or failing
+     * that holds out longest
+     *
+     * @param game the position, which is not changed
+     * @return the best move, or null if no table covers the position or the
+     * side to move has no legal move
+     */
+    public ChessMove bestMove(ChessGame game) {
+        if (probeValue(game) == 0) {
+            return null;
+        }
+        var position = new ChessGame(game);
+        var moves = new MoveList();
+        position.teamValidMoves(position.getTeamTurn(), moves);
+        int best = PackedMove.NONE;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            position.makeMove(move);
+            // a move out of the tables takes a piece or underpromotes, and draws
+            int reply = probeValue(position);
+            position.unmakeMove();
+            int rank;
+            if (reply <= -2) {
+                rank = 1000 + reply; // the opponent loses: sooner is better
+            } else if (reply >= 2) {
+                rank = -1000 + reply; // the opponent wins: later is better
+            } else {
+                rank = 0;
+            }
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = move;
+            }
+        }
+        return best == PackedMove.NONE ? null : PackedMove.toChessMove(best);
+    }
+
+    /**
+     * @return 0 if the position is not covered, {@link #DRAW}, or 2 plus
+     * the plies to mate, negated if the side to move is the one mated
+     */
+    int probeValue(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        if (Long.bitCount(board.getOccupancy()) > MAX_PIECES || game.getCastlingRights() != 0) {
+            return 0;
+        }
+        ChessGame.TeamColor strong = Long.bitCount(board.getOccupancy(ChessGame.TeamColor.WHITE)) > 1
+                ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessGame.TeamColor weak = strong == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        if (Long.bitCount(board.getOccupancy(weak)) != 1) {
+            return 0;
+        }
+        Endgame endgame = endgameOf(board, strong);
+        if (endgame == null || tables[endgame.ordinal()] == null) {
+            return 0;
+        }
+
+        // tables have the strong side as white, so flip the board if it is black
+        int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+        int strongKing = square(board, strong, ChessPiece.PieceType.KING) ^ flip;
+        int weakKing = square(board, weak, ChessPiece.PieceType.KING) ^ flip;
+        int p1 = square(board, strong, endgame.piece(0)) ^ flip;
+        int p2 = endgame.pieceCount() == 2 ? square(board, strong, endgame.piece(1)) ^ flip : -1;
+        int weakToMove = game.getTeamTurn() == strong ? 0 : 1;
+
+        int value = tables[endgame.ordinal()].get(HEADER_BYTES
+                + endgame.index(weakToMove, strongKing, weakKing, p1, p2)) & 0xFF;
+        if (value < 2) {
+            return value; // ILLEGAL reads as not covered
+        }
+        return weakToMove == 0 ? value : -value;
+    }
+
+    private static Endgame endgameOf(ChessBoard board, ChessGame.TeamColor strong) {
+        int pieces = Long.bitCount(board.getOccupancy(strong)) - 1;
+        if (pieces == 1) {
+            if (board.getBitboard(strong, ChessPiece.PieceType.QUEEN) != 0) {
+                return Endgame.KQK;
+            }
+            if (board.getBitboard(strong, ChessPiece.PieceType.ROOK) != 0) {
+                return Endgame.KRK;
+            }
+            if (board.getBitboard(strong, ChessPiece.PieceType.PAWN) != 0) {
+                return Endgame.KPK;
+            }
+        } else if (pieces == 2 && Long.bitCount(board.getBitboard(strong, ChessPiece.PieceType.BISHOP)) == 1
+                && Long.bitCount(board.getBitboard(strong, ChessPiece.PieceType.KNIGHT)) == 1) {
+            return Endgame.KBNK;
+        }
+        return null;
+    }
+
+    private static int square(ChessBoard board, ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return Long.numberOfTrailingZeros(board.getBitboard(color, type));
+    }
+}
@@ -0,0 +1,393 @@
+package chess.engine;
+
+import chess.Attacks;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solves the {@link Endgame}s by retrograde analysis and writes them out for
+ * {@link Tablebase}. Run it with {@code java -cp shared/target/classes
+ * chess.engine.TablebaseGenerator <directory>}.
+ * <p>
+ * Every position starts unknown. Checkmates and draws that need no search,
+ * such as stalemate or the lone king taking an undefended piece, are marked
+ * first. From then on the solver works outwards one ply at a time. Each
+ * position the lone king loses in n plies makes every position the strong
+ * side could have moved into it from a win in n + 1, found by taking moves
+ * back. Each position won in n plies has the lone king's predecessors
+ * checked forward: if every move now runs into a known win, the longest of
+ * them decides a loss in n + 1. Positions never reached are draws. Pawn
+ * promotions step into the queen and rook tables, which is why those are
+ * solved first.
+ * <p>
+ * Positions are handled in strong-side-is-white form throughout, so pawns
+ * move up the board and the lone king is always black.
+ */
+public final class TablebaseGenerator {
+    private static final int UNKNOWN = 0xFF;
+    private static final int UNRESOLVED = -1;
+    private static final int DRAWN = -2;
+    private static final int MATED = -3;
+
+    private final Endgame endgame;
+    private final Map<Endgame, byte[]> solved;
+    private final byte[] values;
+    private Frontier next = new Frontier();
+    private int ply;
+
+    private TablebaseGenerator(Endgame endgame, Map<Endgame, byte[]> solved) {
+        this.endgame = endgame;
+        this.solved = solved;
+        this.values = new byte[endgame.size()];
+    }
+
+    /**
+     * Solves one endgame. KPK needs KQK and KRK already solved, since its
+     * pawn can promote into them.
+     *
+     * @param endgame the endgame to solve
+     * @param solved  tables already solved
+     * @return the table, one value per index: {@link Tablebase#ILLEGAL},
+     * {@link Tablebase#DRAW}, or 2 plus the plies to mate
+     */
+    public static byte[] generate(Endgame endgame, Map<Endgame, byte[]> solved) {
+        return new TablebaseGenerator(endgame, solved).solve();
+    }
+
+    private byte[] solve() {
+        var frontier = new Frontier();
+        List<Frontier> promotions = new ArrayList<>();
+        for (int index = 0; index < values.length; index++) {
+            int p2 = endgame.pieceCount() == 2 ? index & 63 : -1;
+            int rest = endgame.pieceCount() == 2 ? index >>> 6 : index;
+            int p1 = rest & 63;
+            int weakKing = (rest >>> 6) & 63;
+            int kingIndex = (rest >>> 12) % endgame.kingSquares();
+            int weakToMove = (rest >>> 12) / endgame.kingSquares();
+            int strongKing = endgame.kingSquare(kingIndex);
+
+            if (!isLegal(weakToMove, strongKing, weakKing, p1, p2)) {
+                values[index] = Tablebase.ILLEGAL;
+            } else if (weakToMove == 1) {
+                int outcome = weakOutcome(strongKing, weakKing, p1, p2, true);
+                if (outcome == MATED) {
+                    values[index] = 2;
+                    frontier.add(index);
+                } else {
+                    values[index] = (byte) (outcome == DRAWN ? Tablebase.DRAW : UNKNOWN);
+                }
+            } else {
+                values[index] = (byte) UNKNOWN;
+                if (endgame.hasPawn() && p1 >>> 3 == 6) {
+                    int plies = bestPromotion(strongKing, weakKing, p1);
+                    if (plies > 0) {
+                        while (promotions.size() <= plies) {
+                            promotions.add(new Frontier());
+                        }
+                        promotions.get(plies).add(index);
+                    }
+                }
+            }
+        }
+
+        for (ply = 0; !frontier.isEmpty() || ply < promotions.size(); ply++) {
+            next.clear();
+            for (int i = 0; i < frontier.size(); i++) {
+                int index = frontier.get(i);
+                int p2 = endgame.pieceCount() == 2 ? index & 63 : -1;
+                int rest = endgame.pieceCount() == 2 ? index >>> 6 : index;
+                int strongKing = endgame.kingSquare((rest >>> 12) % endgame.kingSquares());
+                if (ply % 2 == 0) {
+                    unmoveStrong(strongKing, (rest >>> 6) & 63, rest & 63, p2);
+                } else {
+                    unmoveWeak(strongKing, (rest >>> 6) & 63, rest & 63, p2);
+                }
+            }
+            if (ply + 1 < promotions.size()) {
+                Frontier promoted = promotions.get(ply + 1);
+                for (int i = 0; i < promoted.size(); i++) {
+                    resolve(promoted.get(i));
+                }
+            }
+            Frontier swap = frontier;
+            frontier = next;
+            next = swap;
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            if ((values[i] & 0xFF) == UNKNOWN) {
+                values[i] = Tablebase.DRAW;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return the plies to mate through the best promotion of a pawn on the
+     * seventh row, or 0 if no promotion wins
+     */
+    private int bestPromotion(int strongKing, int weakKing, int pawn) {
+        int to = pawn + 8;
+        if (to == strongKing || to == weakKing) {
+            return 0;
+        }
+        int best = 0;
+        for (Endgame promoted : new Endgame[]{Endgame.KQK, Endgame.KRK}) {
+            byte[] table = solved.get(promoted);
+            if (table == null) {
+                throw new IllegalStateException(promoted + " must be solved before " + endgame);
+            }
+            int value = table[promoted.index(1, strongKing, weakKing, to, -1)] & 0xFF;
+            if (value >= 2 && (best == 0 || value - 1 < best)) {
+                best = value - 1; // the promotion itself is one more ply
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Takes back every strong-side move that could have led to a position
+     * the lone king loses, marking each position found as a win one ply
+     * longer
+     */
+    private void unmoveStrong(int strongKing, int weakKing, int p1, int p2) {
+        long occupied = bit(strongKing) | bit(weakKing) | bit(p1) | bit(p2);
+        for (long from = Attacks.kingAttacks(strongKing) & ~occupied & ~Attacks.kingAttacks(weakKing); from != 0;
+             from &= from - 1) {
+            resolveStrong(Long.numberOfTrailingZeros(from), weakKing, p1, p2);
+        }
+        for (int i = 0; i < endgame.pieceCount(); i++) {
+            int square = i == 0 ? p1 : p2;
+            ChessPiece.PieceType type = endgame.piece(i);
+            long from;
+            if (type == ChessPiece.PieceType.PAWN) {
+                from = 0L;
+                if (square >>> 3 >= 2 && (occupied & bit(square - 8)) == 0) {
+                    from |= bit(square - 8);
+                    if (square >>> 3 == 3 && (occupied & bit(square - 16)) == 0) {
+                        from |= bit(square - 16);
+                    }
+                }
+            } else {
+                from = attacks(type, square, occupied) & ~occupied;
+            }
+            for (; from != 0; from &= from - 1) {
+                int origin = Long.numberOfTrailingZeros(from);
+                resolveStrong(strongKing, weakKing, i == 0 ? origin : p1, i == 1 ? origin : p2);
+            }
+        }
+    }
+
+    private void resolveStrong(int strongKing, int weakKing, int p1, int p2) {
+        // the strong side is to move, so the lone king must not be in check
+        long occupied = bit(strongKing) | bit(weakKing) | bit(p1) | bit(p2);
+        if ((strongAttacks(strongKing, p1, p2, occupied) & bit(weakKing)) == 0) {
+            resolve(endgame.index(0, strongKing, weakKing, p1, p2));
+        }
+    }
+
+    /**
+     * Takes back every lone king move that could have led to a won
+     * position, and checks each position found to see whether every move
+     * from it now loses
+     */
+    private void unmoveWeak(int strongKing, int weakKing, int p1, int p2) {
+        long occupied = bit(strongKing) | bit(weakKing) | bit(p1) | bit(p2);
+        for (long from = Attacks.kingAttacks(weakKing) & ~occupied & ~Attacks.kingAttacks(strongKing); from != 0;
+             from &= from - 1) {
+            int origin = Long.numberOfTrailingZeros(from);
+            int index = endgame.index(1, strongKing, origin, p1, p2);
+            if ((values[index] & 0xFF) == UNKNOWN && weakOutcome(strongKing, origin, p1, p2, false) == ply) {
+                resolve(index);
+            }
+        }
+    }
+
+    /**
+     * Marks a still unknown position as decided in the next ply, along with
+     * its mirror image across the a1-h8 diagonal. A strong king on that
+     * diagonal is indexed without folding the rest of the board across it,
+     * so such a position and its mirror image have two slots, and taking
+     * back moves only ever reaches one of them.
+     */
+    private void resolve(int index) {
+        if ((values[index] & 0xFF) == UNKNOWN) {
+            values[index] = (byte) (ply + 1 + 2);
+            next.add(index);
+            if (!endgame.hasPawn()) {
+                resolve(diagonalTwin(index));
+            }
+        }
+    }
+
+    private int diagonalTwin(int index) {
+        int p2 = endgame.pieceCount() == 2 ? index & 63 : -1;
+        int rest = endgame.pieceCount() == 2 ? index >>> 6 : index;
+        int strongKing = endgame.kingSquare((rest >>> 12) % endgame.kingSquares());
+        return endgame.index((rest >>> 12) / endgame.kingSquares(), transpose(strongKing),
+                transpose((rest >>> 6) & 63), transpose(rest & 63), p2 < 0 ? -1 : transpose(p2));
+    }
+
+    private static int transpose(int square) {
+        return (square & 7) * 8 + (square >>> 3);
+    }
+
+    /**
+     * Looks at the lone king's moves
+     *
+     * @param terminalOnly whether to stop short of looking up the positions
+     *                     the moves lead to
+     * @return {@link #MATED}, {@link #DRAWN} for stalemate or a safe capture,
+     * {@link #UNRESOLVED} if some move does not lead to a known loss,
+     * and otherwise the most plies any move holds out
+     */
+    private int weakOutcome(int strongKing, int weakKing, int p1, int p2, boolean terminalOnly) {
+        long strong = bit(strongKing) | bit(p1) | bit(p2);
+        // look through the king, so it cannot step back along a slider's line
+        long attacked = strongAttacks(strongKing, p1, p2, strong);
+        long targets = Attacks.kingAttacks(weakKing) & ~attacked;
+        if ((targets & strong) != 0) {
+            return DRAWN; // one piece down, the rest cannot mate
+        }
+        if (targets == 0) {
+            return (attacked & bit(weakKing)) != 0 ? MATED : DRAWN;
+        }
+        if (terminalOnly) {
+            return UNRESOLVED;
+        }
+        int longest = 0;
+        for (; targets != 0; targets &= targets - 1) {
+            int value = values[endgame.index(0, strongKing, Long.numberOfTrailingZeros(targets), p1, p2)] & 0xFF;
+            if (value == UNKNOWN || value < 2) {
+                return UNRESOLVED;
+            }
+            longest = Math.max(longest, value - 2);
+        }
+        return longest;
+    }
+
+    private boolean isLegal(int weakToMove, int strongKing, int weakKing, int p1, int p2) {
+        long occupied = bit(strongKing) | bit(weakKing) | bit(p1) | bit(p2);
+        if (Long.bitCount(occupied) != 3 + (p2 >= 0 ? 1 : 0)
+                || (Attacks.kingAttacks(strongKing) & bit(weakKing)) != 0) {
+            return false;
+        }
+        if (endgame.hasPawn() && (p1 >>> 3 == 0 || p1 >>> 3 == 7)) {
+            return false;
+        }
+        return weakToMove == 1 || (strongAttacks(strongKing, p1, p2, occupied) & bit(weakKing)) == 0;
+    }
+
+    private long strongAttacks(int strongKing, int p1, int p2, long occupied) {
+        long attacked = Attacks.kingAttacks(strongKing) | attacks(endgame.piece(0), p1, occupied);
+        if (p2 >= 0) {
+            attacked |= attacks(endgame.piece(1), p2, occupied);
+        }
+        return attacked;
+    }
+
+    private static long attacks(ChessPiece.PieceType type, int square, long occupied) {
+        return switch (type) {
+            case QUEEN -> Attacks.queenAttacks(square, occupied);
+            case ROOK -> Attacks.rookAttacks(square, occupied);
+            case BISHOP -> Attacks.bishopAttacks(square, occupied);
+            case KNIGHT -> Attacks.knightAttacks(square);
+            case PAWN -> Attacks.pawnAttacks(ChessGame.TeamColor.WHITE, square);
+            case KING -> Attacks.kingAttacks(square);
+        };
+    }
+
+    private static long bit(int square) {
+        return square < 0 ? 0L : 1L << square;
+    }
+
+    /**
+     * Writes a solved table in the format {@link Tablebase#open} maps
+     */
+    public static void write(Endgame endgame, byte[] values, Path path) throws IOException {
+        var header = ByteBuffer.allocate(Tablebase.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION).putInt(endgame.ordinal()).putInt(values.length);
+        header.flip();
+        var body = ByteBuffer.wrap(values);
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, body});
+            }
+        }
+    }
+
+    /**
+     * Solves every endgame in dependency order and writes them all into a
+     * directory
+     */
+    public static void generateAll(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Map<Endgame, byte[]> solved = new EnumMap<>(Endgame.class);
+        for (Endgame endgame : Endgame.values()) {
+            long start = System.nanoTime();
+            byte[] values = generate(endgame, solved);
+            solved.put(endgame, values);
+            write(endgame, values, directory.resolve(endgame.fileName()));
+
+            int longest = 0;
+            for (byte value : values) {
+                longest = Math.max(longest, (value & 0xFF) - 2);
+            }
+            System.out.printf("%s: %d positions, longest mate %d plies, %.1f s%n", endgame, values.length, longest,
+                    (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("usage: TablebaseGenerator <directory>");
+            return;
+        }
+        generateAll(Path.of(args[0]));
+    }
+
+    /**
+     * A growable list of table indexes
+     */
+    private static final class Frontier {
+        private int[] items = new int[1024];
+        private int size;
+
+        void add(int item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = item;
+        }
+
+        int get(int i) {
+            return items[i];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
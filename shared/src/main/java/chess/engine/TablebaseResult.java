@@ -0,0 +1,19 @@
+package chess.engine;
+
+/**
+ * What a {@link Tablebase} knows about a position
+ *
+ * @param wdl         whether the side to move wins, draws or loses
+ * @param pliesToMate how many plies the mate takes with best play, or 0 for
+ *                    a draw
+ */
+public record TablebaseResult(Wdl wdl, int pliesToMate) {
+    /**
+     * Win, draw or loss for the side to move
+     */
+    public enum Wdl {
+        WIN,
+        DRAW,
+        LOSS
+    }
+}
@@ -0,0 +1,254 @@
+package chess.engine;
+
+import chess.PackedMove;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size cache of searched positions, keyed by
+ * {@link chess.ChessGame#positionKey()}, that any number of search threads
+ * can share without locking.
+ * <p>
+ * Entries live in one flat {@code long[]}, two words each: the data word
+ * packs the best move, score, depth, bound and the search generation that
+ * wrote it, and the key word holds the position key XORed with the data.
+ * Writers store both words with plain writes, so a reader may see the two
+ * halves of different entries; the XOR makes such a torn entry fail the key
+ * check and read as a miss instead of returning another position's data.
+ * <p>
+ * Entries are grouped four to a 64-byte bucket. A new entry takes the slot
+ * that already holds its position, then an empty one, and otherwise the one
+ * whose depth counts for least once entries from earlier searches are aged
+ * down, so deep results from the current search are the last to go.
+ * <p>
+ * Probing and storing count nothing, to keep shared writes out of the
+ * search's inner loop. Each searcher counts its own lookups and adds them to
+ * the table's totals with {@link #addCounts} once it finishes.
+ */
+public final class TranspositionTable {
+    /**
+     * The score is at least the stored value (the search failed high)
+     */
+    public static final int LOWER = 1;
+    /**
+     * The score is at most the stored value (the search failed low)
+     */
+    public static final int UPPER = 2;
+    /**
+     * The score is exact
+     */
+    public static final int EXACT = LOWER | UPPER;
+
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_WORDS = BUCKET_ENTRIES * 2;
+    private static final int BUCKET_BYTES = BUCKET_WORDS * Long.BYTES;
+    private static final int MAX_BUCKETS = 1 << 27;
+    /**
+     * How much depth an entry is worth less for each search since it was written
+     */
+    private static final int AGE_PENALTY = 8;
+
+    // data word layout; a stored entry always has a bound, so its data is never 0
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int GENERATION_SHIFT = 42;
+
+    private final long[] table;
+    private final int bucketMask;
+    private volatile int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * @param megabytes roughly how much memory to use; the entry count is
+     *                  rounded down to a power of two
+     * @throws IllegalArgumentException if the size is not at least 1 MB or
+     *                                  is more than 8 GB
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || (long) megabytes * 1024 * 1024 / BUCKET_BYTES > MAX_BUCKETS) {
+            throw new IllegalArgumentException("table size must be between 1 and "
+                    + (long) MAX_BUCKETS * BUCKET_BYTES / (1024 * 1024) + " MB");
+        }
+        int buckets = Integer.highestOneBit((int) ((long) megabytes * 1024 * 1024 / BUCKET_BYTES));
+        table = new long[buckets * BUCKET_WORDS];
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * @return how many entries the table holds
+     */
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * Empties the table and resets its counters. Must not be called while a
+     * search is using it.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+        probes.reset();
+        hits.reset();
+        collisions.reset();
+    }
+
+    /**
+     * Marks the start of a new search, so entries from earlier searches
+     * become the first to be replaced
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @param key the position key
+     * @return the entry's data word, to be read with the static accessors,
+     * or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        int base = bucket(key);
+        for (int i = base; i < base + BUCKET_WORDS; i += 2) {
+            long data = table[i + 1];
+            if (data != 0 && (table[i] ^ data) == key) {
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Records the result of searching a position
+     *
+     * @param key   the position key
+     * @param move  the best move as a {@link PackedMove}, or
+     *              {@link PackedMove#NONE} to keep any move already stored
+     *              for the position
+     * @param score the score, which must fit in 16 bits
+     * @param depth the depth searched, 0 to 255
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @return whether the entry pushed out a different position
+     */
+    public boolean store(long key, int move, int score, int depth, int bound) {
+        int base = bucket(key);
+        int generation = this.generation;
+        int slot = base;
+        int worst = Integer.MAX_VALUE;
+        boolean evicts = true;
+        for (int i = base; i < base + BUCKET_WORDS; i += 2) {
+            long data = table[i + 1];
+            if (data == 0) {
+                slot = i;
+                evicts = false;
+                break;
+            }
+            if ((table[i] ^ data) == key) {
+                slot = i;
+                evicts = false;
+                if (move == PackedMove.NONE) {
+                    move = move(data);
+                }
+                break;
+            }
+            int age = (generation - (int) (data >>> GENERATION_SHIFT)) & 0xFF;
+            int worth = depth(data) - AGE_PENALTY * age;
+            if (worth < worst) {
+                worst = worth;
+                slot = i;
+            }
+        }
+
+        long data = (move & 0xFFFFL)
+                | (score & 0xFFFFL) << SCORE_SHIFT
+                | (depth & 0xFFL) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) generation << GENERATION_SHIFT;
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+        return evicts;
+    }
+
+    private int bucket(long key) {
+        return ((int) key & bucketMask) * BUCKET_WORDS;
+    }
+
+    /**
+     * @return the stored best move, or {@link PackedMove#NONE}
+     */
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * @return {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     */
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    /**
+     * Adds a finished search's lookups to the totals
+     *
+     * @param probes     lookups made
+     * @param hits       lookups that found their position
+     * @param collisions stores that pushed out a different position
+     */
+    public void addCounts(long probes, long hits, long collisions) {
+        this.probes.add(probes);
+        this.hits.add(hits);
+        this.collisions.add(collisions);
+    }
+
+    /**
+     * @return how many lookups have been made
+     */
+    public long probes() {
+        return probes.sum();
+    }
+
+    /**
+     * @return how many lookups found their position
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return how many stores pushed out a different position
+     */
+    public long collisions() {
+        return collisions.sum();
+    }
+
+    /**
+     * Estimates how full the table is from a sample of its first entries
+     *
+     * @return entries per thousand written by the current search
+     */
+    public int hashfull() {
+        int sampled = Math.min(1000, capacity());
+        int used = 0;
+        for (int i = 0; i < sampled; i++) {
+            long data = table[i * 2 + 1];
+            if (data != 0 && (int) (data >>> GENERATION_SHIFT) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sampled;
+    }
+}
@@ -0,0 +1,171 @@
+package chess.perft;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveList;
+import chess.PackedMove;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth.
+ * <p>
+ * Perft numbers for well known positions are published, so matching them
+ * shows move generation is correct, and timing the count shows how fast it
+ * is. Run it with {@code java -cp shared/target/classes chess.perft.Perft
+ * <depth> [threads] [--divide] [--fen <position>]}.
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    /**
+     * Counts leaf nodes below the current position. The game is left as it
+     * was found.
+     *
+     * @param game  the position to count from
+     * @param depth how many plies deep to count
+     * @return number of leaf nodes at that depth
+     */
+    public static long count(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        return count(game, depth, newLists(depth));
+    }
+
+    /**
+     * Counts with one move list per remaining ply, so the walk itself
+     * allocates nothing
+     */
+    private static long count(ChessGame game, int depth, MoveList[] lists) {
+        MoveList moves = lists[depth];
+        game.teamValidMoves(game.getTeamTurn(), moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            nodes += count(game, depth - 1, lists);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private static MoveList[] newLists(int depth) {
+        var lists = new MoveList[depth + 1];
+        for (int i = 1; i <= depth; i++) {
+            lists[i] = new MoveList();
+        }
+        return lists;
+    }
+
+    /**
+     * Counts leaf nodes below each root move, splitting the root moves across
+     * a fork-join pool when more than one thread is asked for.
+     *
+     * @param game    the position to count from, which is not modified
+     * @param depth   how many plies deep to count, at least 1
+     * @param threads how many threads to count with
+     * @return the total and per root move counts, with timing
+     */
+    public static PerftResult divide(ChessGame game, int depth, int threads) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("divide needs a depth of at least 1");
+        }
+        long start = System.nanoTime();
+        Map<ChessMove, Long> divide = new TreeMap<>(Comparator.comparing(ChessMove::toString));
+        var rootMoves = new MoveList();
+        game.teamValidMoves(game.getTeamTurn(), rootMoves);
+
+        if (threads <= 1) {
+            var position = new ChessGame(game);
+            for (int i = 0; i < rootMoves.size(); i++) {
+                int move = rootMoves.get(i);
+                position.makeMove(move);
+                divide.put(PackedMove.toChessMove(move), count(position, depth - 1));
+                position.unmakeMove();
+            }
+        } else {
+            var pool = new ForkJoinPool(threads);
+            try {
+                List<RootMoveTask> tasks = new ArrayList<>();
+                for (int i = 0; i < rootMoves.size(); i++) {
+                    tasks.add(new RootMoveTask(game, rootMoves.get(i), depth - 1));
+                }
+                for (RootMoveTask task : tasks) {
+                    pool.execute(task);
+                }
+                for (RootMoveTask task : tasks) {
+                    divide.put(PackedMove.toChessMove(task.move), task.join());
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        long nodes = 0;
+        for (long count : divide.values()) {
+            nodes += count;
+        }
+        return new PerftResult(nodes, divide, System.nanoTime() - start);
+    }
+
+    /**
+     * Counts one root move on its own copy of the game
+     */
+    private static final class RootMoveTask extends RecursiveTask<Long> {
+        private final ChessGame game;
+        private final int move;
+        private final int depth;
+
+        RootMoveTask(ChessGame root, int move, int depth) {
+            this.game = new ChessGame(root);
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            game.makeMove(move);
+            return count(game, depth);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("usage: Perft <depth> [threads] [--divide] [--fen <position>]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        int threads = 1;
+        boolean showDivide = false;
+        var game = new ChessGame();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--divide")) {
+                showDivide = true;
+            } else if (args[i].equals("--fen") && i + 1 < args.length) {
+                game = ChessGame.fromFen(args[++i]);
+            } else {
+                threads = Integer.parseInt(args[i]);
+            }
+        }
+
+        var result = divide(game, depth, threads);
+        if (showDivide) {
+            result.divide().forEach((move, nodes) -> System.out.println(move + ": " + nodes));
+            System.out.println();
+        }
+        System.out.printf("depth %d: %d nodes in %.3f s (%.0f nodes/s, %d thread%s)%n",
+                depth, result.nodes(), result.elapsedNanos() / 1e9, result.nodesPerSecond(),
+                threads, threads == 1 ? "" : "s");
+    }
+}
@@ -0,0 +1,25 @@
+package chess.perft;
+
+import chess.ChessMove;
+
+import java.util.Map;
+
+/**
+ * Leaf node counts from a perft run
+ *
+ * @param nodes        total leaf nodes at the requested depth
+ * @param divide       leaf nodes under each root move
+ * @param elapsedNanos wall clock time the run took
+ */
+public record PerftResult(long nodes, Map<ChessMove, Long> divide, long elapsedNanos) {
+
+    /**
+     * @return leaf nodes counted per second of wall clock time
+     */
+    public double nodesPerSecond() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return nodes * 1_000_000_000.0 / elapsedNanos;
+    }
+}
@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * Which page of the lobby to fetch with GET /game. Every field is optional.
+ *
+ * @param openSeat   only games with a seat still free
+ * @param mine       only games the caller is playing in
+ * @param namePrefix only games whose name starts with this
+ * @param cursor     the nextCursor of the previous page, or null for the first
+ * @param limit      the most games to return, or null for as many as the server allows
+ */
+public record GameListRequest(boolean openSeat, boolean mine, String namePrefix, String cursor, Integer limit) {
+    public static final GameListRequest ALL = new GameListRequest(false, false, null, null, null);
+}
@@ -2,6 +2,11 @@ package model;
 
 import java.util.Collection;
 
-public record GameReport(Collection<GameData> games) {
+/**
+ * One page of the lobby
+ *
+ * @param nextCursor where the next page starts, or null on the last page
+ */
+public record GameReport(Collection<GameDataReport> games, String nextCursor) {
     
 }
@@ -0,0 +1,26 @@
+package model;
+
+import chess.ChessBoard;
+import chess.ChessBoardAdapter;
+import chess.ChessGame;
+import chess.ChessGameAdapter;
+import chess.ChessMove;
+import chess.ChessMoveAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * The {@link Gson} shared by the server, the DAOs and the client, with the
+ * chess types registered to their compact adapters. A Gson is thread-safe
+ * and caches the adapters it looks up, so one instance serves every request.
+ */
+public final class Json {
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(ChessGame.class, new ChessGameAdapter())
+            .registerTypeAdapter(ChessBoard.class, new ChessBoardAdapter())
+            .registerTypeAdapter(ChessMove.class, new ChessMoveAdapter())
+            .create();
+
+    private Json() {
+    }
+}
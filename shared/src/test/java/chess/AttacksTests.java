@@ -0,0 +1,79 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttacksTests {
+
+    @Test
+    void magicsMatchRayWalk() {
+        var random = new Random(240);
+        for (int square = 0; square < 64; square++) {
+            for (int i = 0; i < 200; i++) {
+                long occupied = random.nextLong() & random.nextLong();
+                assertEquals(Attacks.rookAttacksSlow(square, occupied), Attacks.rookAttacks(square, occupied));
+                assertEquals(Attacks.bishopAttacksSlow(square, occupied), Attacks.bishopAttacks(square, occupied));
+            }
+        }
+    }
+
+    @Test
+    void magicsCoverEveryBlockerArrangement() {
+        for (int square = 0; square < 64; square++) {
+            long mask = Attacks.rookMask(square);
+            long occupied = 0L;
+            do {
+                assertEquals(Attacks.rookAttacksSlow(square, occupied), Attacks.rookAttacks(square, occupied));
+                occupied = (occupied - mask) & mask;
+            } while (occupied != 0);
+
+            mask = Attacks.bishopMask(square);
+            do {
+                assertEquals(Attacks.bishopAttacksSlow(square, occupied), Attacks.bishopAttacks(square, occupied));
+                occupied = (occupied - mask) & mask;
+            } while (occupied != 0);
+        }
+    }
+
+    @Test
+    void emptyBoardAttacks() {
+        int d4 = Bitboards.square(4, 4);
+        assertEquals(14, Long.bitCount(Attacks.rookAttacks(d4, 0L)));
+        assertEquals(13, Long.bitCount(Attacks.bishopAttacks(d4, 0L)));
+        assertEquals(27, Long.bitCount(Attacks.queenAttacks(d4, 0L)));
+    }
+
+    @Test
+    void blockersAreIncluded() {
+        int a1 = Bitboards.square(1, 1);
+        long blockers = Bitboards.bit(Bitboards.square(1, 3)) | Bitboards.bit(Bitboards.square(4, 1));
+        long expected = Bitboards.bit(Bitboards.square(1, 2)) | Bitboards.bit(Bitboards.square(1, 3))
+                | Bitboards.bit(Bitboards.square(2, 1)) | Bitboards.bit(Bitboards.square(3, 1))
+                | Bitboards.bit(Bitboards.square(4, 1));
+        assertEquals(expected, Attacks.rookAttacks(a1, blockers));
+    }
+
+    @Test
+    void leaperAttacksStopAtTheEdge() {
+        int a1 = Bitboards.square(1, 1);
+        int d4 = Bitboards.square(4, 4);
+        assertEquals(2, Long.bitCount(Attacks.knightAttacks(a1)));
+        assertEquals(8, Long.bitCount(Attacks.knightAttacks(d4)));
+        assertEquals(3, Long.bitCount(Attacks.kingAttacks(a1)));
+        assertEquals(8, Long.bitCount(Attacks.kingAttacks(d4)));
+    }
+
+    @Test
+    void pawnAttacksFollowColor() {
+        int a2 = Bitboards.square(2, 1);
+        int e4 = Bitboards.square(4, 5);
+        assertEquals(Bitboards.bit(Bitboards.square(3, 2)), Attacks.pawnAttacks(ChessGame.TeamColor.WHITE, a2));
+        assertEquals(Bitboards.bit(Bitboards.square(1, 2)), Attacks.pawnAttacks(ChessGame.TeamColor.BLACK, a2));
+        assertEquals(Bitboards.bit(Bitboards.square(5, 4)) | Bitboards.bit(Bitboards.square(5, 6)),
+                Attacks.pawnAttacks(ChessGame.TeamColor.WHITE, e4));
+        assertEquals(0L, Attacks.pawnAttacks(ChessGame.TeamColor.WHITE, Bitboards.square(8, 5)));
+    }
+}
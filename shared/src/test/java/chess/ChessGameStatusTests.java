@@ -0,0 +1,81 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessGameStatusTests {
+
+    @Test
+    void statusCoversEveryOutcome() {
+        assertEquals(ChessGame.GameStatus.IN_PROGRESS, new ChessGame().getGameStatus());
+        assertEquals(ChessGame.GameStatus.CHECK,
+                ChessGame.fromFen("4k3/8/8/8/8/8/8/4R1K1 b - - 0 1").getGameStatus());
+        assertEquals(ChessGame.GameStatus.CHECKMATE,
+                ChessGame.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3").getGameStatus());
+        assertEquals(ChessGame.GameStatus.STALEMATE,
+                ChessGame.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1").getGameStatus());
+    }
+
+    @Test
+    void earlyExitAgreesWithFullGeneration() {
+        var game = ChessGame.fromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        var moves = new MoveList();
+        var replies = new MoveList();
+        game.teamValidMoves(game.getTeamTurn(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                game.teamValidMoves(color, replies);
+                assertEquals(!replies.isEmpty(), game.hasAnyLegalMove(color));
+            }
+            game.unmakeMove();
+        }
+    }
+
+    @Test
+    void knightShufflesRepeatThreeTimes() throws InvalidMoveException {
+        var game = new ChessGame();
+        for (int i = 0; i < 2; i++) {
+            game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+            game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+        }
+        assertEquals(3, game.repetitionCount());
+        assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.getGameStatus());
+
+        game.unmakeMove();
+        assertEquals(ChessGame.GameStatus.IN_PROGRESS, game.getGameStatus());
+        game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+        assertTrue(game.isThreefoldRepetition());
+    }
+
+    @Test
+    void pawnMoveResetsRepetitions() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+        assertEquals(2, game.repetitionCount());
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(3, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(6, 5), null));
+        assertEquals(1, game.repetitionCount());
+    }
+
+    @Test
+    void fiftyMovesWithoutProgressDraw() throws InvalidMoveException {
+        var game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        assertEquals(ChessGame.GameStatus.IN_PROGRESS, game.getGameStatus());
+        game.makeMove(new ChessMove(new ChessPosition(1, 1), new ChessPosition(2, 1), null));
+        assertTrue(game.isFiftyMoveRule());
+        assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, game.getGameStatus());
+
+        // mate on the hundredth ply still counts as mate
+        game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 99 80");
+        game.makeMove(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null));
+        assertEquals(ChessGame.GameStatus.CHECKMATE, game.getGameStatus());
+    }
+}
@@ -0,0 +1,81 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FenTests {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+
+    @Test
+    void startingPosition() {
+        assertEquals(Fen.START, new ChessGame().toFen());
+        assertEquals(new ChessGame(), ChessGame.fromFen(Fen.START));
+        assertEquals(TestUtilities.defaultBoard(), ChessBoard.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR"));
+    }
+
+    @Test
+    void roundTrip() {
+        String[] positions = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "rnbqkb1r/pp1p1ppp/5n2/2pPp3/8/8/PPP1PPPP/RNBQKBNR w Kq c6 12 40",
+                "8/8/8/8/8/8/8/k6K b - - 99 120",
+        };
+        for (String fen : positions) {
+            var game = ChessGame.fromFen(fen);
+            assertEquals(fen, game.toFen());
+            assertEquals(game, ChessGame.fromFen(game.toFen()));
+        }
+    }
+
+    @Test
+    void movesUpdateFields() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", game.toFen());
+        game.makeMove(move(7, 4, 5, 4));
+        game.makeMove(move(4, 5, 5, 5));
+        game.makeMove(move(7, 6, 5, 6));
+        assertEquals("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", game.toFen());
+        game.makeMove(move(1, 7, 3, 6));
+        game.makeMove(move(8, 7, 6, 8));
+        game.makeMove(move(1, 8, 1, 7));
+        assertEquals("rnbqkb1r/ppp1p1pp/7n/3pPp2/8/5N2/PPPP1PPP/RNBQKBR1 b Qkq - 3 4", game.toFen());
+
+        game.unmakeMove();
+        game.unmakeMove();
+        game.unmakeMove();
+        assertEquals("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", game.toFen());
+    }
+
+    @Test
+    void countersAreOptional() {
+        var game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K2R w K -");
+        assertEquals("4k3/8/8/8/8/8/8/4K2R w K - 0 1", game.toFen());
+        assertEquals(ChessGame.WHITE_KINGSIDE, game.getCastlingRights());
+    }
+
+    @Test
+    void rejectsBadPositions() {
+        String[] positions = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNRR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkx - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - x 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 0",
+        };
+        for (String fen : positions) {
+            assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+}
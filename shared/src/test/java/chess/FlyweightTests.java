@@ -0,0 +1,49 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlyweightTests {
+
+    @Test
+    void positionsAreShared() {
+        assertSame(ChessPosition.of(4, 5), ChessPosition.of(4, 5));
+        assertEquals(new ChessPosition(4, 5), ChessPosition.of(4, 5));
+        assertEquals(new ChessPosition(0, 9), ChessPosition.of(0, 9));
+    }
+
+    @Test
+    void piecesAreShared() {
+        var piece = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        assertSame(piece, ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT), piece);
+        assertEquals(ChessGame.TeamColor.BLACK, piece.getTeamColor());
+        assertEquals(ChessPiece.PieceType.KNIGHT, piece.getPieceType());
+    }
+
+    @Test
+    void movesAreShared() {
+        var e2 = new ChessPosition(2, 5);
+        var e4 = new ChessPosition(4, 5);
+        assertSame(ChessMove.of(e2, e4, null), ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        assertEquals(new ChessMove(e2, e4, null), ChessMove.of(e2, e4, null));
+
+        var a7 = new ChessPosition(7, 1);
+        var b8 = new ChessPosition(8, 2);
+        var promotion = ChessMove.of(a7, b8, ChessPiece.PieceType.KNIGHT);
+        assertSame(promotion, ChessMove.of(a7, b8, ChessPiece.PieceType.KNIGHT));
+        assertEquals(new ChessMove(a7, b8, ChessPiece.PieceType.KNIGHT), promotion);
+        assertEquals(new ChessMove(a7, b8, ChessPiece.PieceType.KING), ChessMove.of(a7, b8, ChessPiece.PieceType.KING));
+    }
+
+    @Test
+    void generatedMovesAreShared() {
+        var game = new ChessGame();
+        for (ChessMove move : game.teamValidMoves(ChessGame.TeamColor.WHITE)) {
+            assertSame(move, ChessMove.of(move.getStartPosition(), move.getEndPosition(), null));
+            assertSame(ChessPosition.of(move.getEndPosition().getRow(), move.getEndPosition().getColumn()),
+                    move.getEndPosition());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameSnapshotTests {
+
+    @Test
+    void snapshotIgnoresLaterMoves() throws InvalidMoveException {
+        var game = new ChessGame();
+        var snapshot = game.snapshot();
+        var e2 = new ChessPosition(2, 5);
+
+        game.makeMove(new ChessMove(e2, new ChessPosition(4, 5), null));
+        assertEquals(ChessGame.TeamColor.WHITE, snapshot.getTeamTurn());
+        assertNotNull(snapshot.getPiece(e2));
+        assertEquals(2, snapshot.validMoves(e2).size());
+        assertEquals(new ChessGame().toFen(), snapshot.toFen());
+        assertEquals(new ChessGame().positionKey(), snapshot.positionKey());
+
+        var copy = snapshot.toGame();
+        copy.makeMove(new ChessMove(e2, new ChessPosition(3, 5), null));
+        assertEquals(new ChessGame().snapshot(), snapshot);
+    }
+
+    @Test
+    void queriesLeaveGameUntouched() {
+        var game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 0 1");
+        String fen = game.toFen();
+        long key = game.positionKey();
+
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            game.teamValidMoves(color);
+            game.isInCheck(color);
+            game.isInCheckmate(color);
+            game.isInStalemate(color);
+        }
+        game.validMoves(new ChessPosition(1, 5));
+        game.getGameStatus();
+
+        assertEquals(fen, game.toFen());
+        assertEquals(key, game.positionKey());
+    }
+
+    @Test
+    void concurrentReadersAgree() throws Exception {
+        var game = ChessGame.fromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        Map<ChessPosition, Collection<ChessMove>> expected = new HashMap<>();
+        for (int row = 1; row < 9; row++) {
+            for (int col = 1; col < 9; col++) {
+                var position = ChessPosition.of(row, col);
+                expected.put(position, game.validMoves(position));
+            }
+        }
+
+        boolean whiteInCheck = game.isInCheck(ChessGame.TeamColor.WHITE);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        for (var entry : expected.entrySet()) {
+                            if (!Objects.equals(entry.getValue(), game.validMoves(entry.getKey()))) {
+                                return false;
+                            }
+                        }
+                        if (game.isInCheck(ChessGame.TeamColor.WHITE) != whiteInCheck
+                                || game.isInCheckmate(ChessGame.TeamColor.WHITE)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
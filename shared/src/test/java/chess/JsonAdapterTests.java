@@ -0,0 +1,116 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import model.GameData;
+import model.Json;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonAdapterTests {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+
+    @Test
+    void writesCompactStrings() {
+        assertEquals("\"" + Fen.START + "\"", Json.GSON.toJson(new ChessGame()));
+        assertEquals("\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR\"",
+                Json.GSON.toJson(new ChessGame().getBoard()));
+        assertEquals("\"a7a8q\"", Json.GSON.toJson(
+                new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN)));
+        assertEquals("{\"gameID\":3,\"gameName\":\"g\",\"game\":\"" + Fen.START + "\"}",
+                Json.GSON.toJson(new GameData(3, null, null, "g", new ChessGame())));
+    }
+
+    @Test
+    void roundTrip() throws InvalidMoveException {
+        var game = ChessGame.fromFen("rnbqkb1r/pp1p1ppp/5n2/2pPp3/8/8/PPP1PPPP/RNBQKBNR w Kq c6 12 40");
+        game.makeMove(move(5, 4, 6, 3));
+        var read = Json.GSON.fromJson(Json.GSON.toJson(game), ChessGame.class);
+        assertEquals(game, read);
+        assertEquals(game.toFen(), read.toFen());
+
+        var moved = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        assertSame(ChessMove.of(moved.getStartPosition(), moved.getEndPosition(), null),
+                Json.GSON.fromJson(Json.GSON.toJson(moved), ChessMove.class));
+    }
+
+    @Test
+    void keepsRepetitionHistory() throws InvalidMoveException {
+        var game = new ChessGame();
+        for (int i = 0; i < 2; i++) {
+            game.makeMove(move(1, 7, 3, 6));
+            game.makeMove(move(8, 7, 6, 6));
+            game.makeMove(move(3, 6, 1, 7));
+            if (i == 0) {
+                game.makeMove(move(6, 6, 8, 7));
+            }
+        }
+        var read = Json.GSON.fromJson(Json.GSON.toJson(game), ChessGame.class);
+        read.makeMove(move(6, 6, 8, 7));
+        assertTrue(read.isThreefoldRepetition());
+    }
+
+    @Test
+    void readsFieldByFieldGames() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(8, 7, 6, 6));
+        game.makeMove(move(1, 7, 3, 6));
+        game.makeMove(move(6, 6, 8, 7));
+        game.makeMove(move(3, 6, 1, 7));
+
+        // the shape games were stored in before they had an adapter
+        String stored = new Gson().toJson(game);
+        var read = Json.GSON.fromJson(stored, ChessGame.class);
+        assertEquals(game, read);
+        assertEquals(game.toFen(), read.toFen());
+        assertEquals(game.positionKey(), read.positionKey());
+        read.makeMove(move(8, 7, 6, 6));
+        assertEquals(2, read.repetitionCount());
+    }
+
+    @Test
+    void readsOriginalBoardArrays() {
+        var start = new ChessGame();
+        start.getBoard().removePiece(new ChessPosition(1, 8)); // lost the h1 rook
+        var json = new StringBuilder("{\"board\":{\"board\":[");
+        for (int row = 1; row <= 8; row++) {
+            json.append(row > 1 ? ",[" : "[");
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = start.getBoard().getPiece(new ChessPosition(row, col));
+                json.append(col > 1 ? "," : "");
+                json.append(piece == null ? "null" : "{\"color\":\"" + piece.getTeamColor()
+                        + "\",\"type\":\"" + piece.getPieceType() + "\"}");
+            }
+            json.append(']');
+        }
+        json.append("]},\"currentTurn\":\"BLACK\"");
+
+        var read = Json.GSON.fromJson(json + ",\"whiteCanCastle\":false,\"blackCanCastle\":false}",
+                ChessGame.class);
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN1 b - - 0 1", read.toFen());
+        assertEquals(start.getBoard().getKey(), read.getBoard().getKey());
+
+        read = Json.GSON.fromJson(json + ",\"whiteCanCastle\":true,\"blackCanCastle\":false}", ChessGame.class);
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN1 b Q - 0 1", read.toFen());
+    }
+
+    @Test
+    void readsFieldByFieldMoves() {
+        String stored = "{\"start\":{\"row\":7,\"col\":2},\"end\":{\"row\":8,\"col\":1},\"promotionPiece\":\"KNIGHT\"}";
+        assertEquals(new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT),
+                Json.GSON.fromJson(stored, ChessMove.class));
+    }
+
+    @Test
+    void rejectsBadText() {
+        assertThrows(JsonSyntaxException.class, () -> Json.GSON.fromJson("\"not a position\"", ChessGame.class));
+        assertThrows(JsonSyntaxException.class, () -> Json.GSON.fromJson("\"e2e9\"", ChessMove.class));
+        assertThrows(JsonSyntaxException.class,
+                () -> Json.GSON.fromJson("{\"squares\":[{\"color\":\"RED\",\"type\":\"KING\"}]}", ChessBoard.class));
+    }
+}
@@ -0,0 +1,122 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MakeUnmakeMoveTests {
+
+    @Test
+    void unmakeRestoresGame() throws InvalidMoveException {
+        var game = new ChessGame();
+        var original = new ChessGame(game);
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertNotEquals(original, game);
+
+        game.unmakeMove();
+        game.unmakeMove();
+        game.unmakeMove();
+        assertEquals(original, game);
+        assertEquals(original.getBoard(), game.getBoard());
+    }
+
+    @Test
+    void unmakeRestoresPromotion() throws InvalidMoveException {
+        var game = new ChessGame();
+        var board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(7, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        game.setBoard(board);
+        var before = new ChessBoard(board);
+
+        game.makeMove(new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN),
+                game.getBoard().getPiece(new ChessPosition(8, 1)));
+
+        game.unmakeMove();
+        assertEquals(before, game.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    void castlingAndEnPassantMoveTwoPieces() throws InvalidMoveException {
+        String fen = "r3k2r/8/8/8/4p3/8/3P4/R3K2R w KQkq - 0 1";
+        var game = ChessGame.fromFen(fen);
+
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 5), new ChessPosition(8, 3), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(3, 4), null));
+        assertEquals("2kr3r/8/8/8/8/3p4/8/R4RK1 w - - 0 3", game.toFen());
+        assertEquals(new ChessPosition(1, 7), game.getBoard().getKingPosition(ChessGame.TeamColor.WHITE));
+        assertEquals(new ChessPosition(8, 3), game.getBoard().getKingPosition(ChessGame.TeamColor.BLACK));
+
+        game.unmakeMove();
+        game.unmakeMove();
+        game.unmakeMove();
+        game.unmakeMove();
+        assertEquals(fen, game.toFen());
+        assertEquals(new ChessPosition(1, 5), game.getBoard().getKingPosition(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void rejectedMoveLeavesGameUnchanged() {
+        var game = new ChessGame();
+        var board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(2, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        game.setBoard(board);
+        var before = new ChessGame(game);
+
+        assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(2, 1), null)));
+        assertEquals(before, game);
+        assertThrows(IllegalStateException.class, game::unmakeMove);
+    }
+
+    @Test
+    void setBoardForgetsMovesMade() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.setBoard(new ChessBoard(new ChessGame().getBoard()));
+        var before = new ChessGame(game);
+
+        assertThrows(IllegalStateException.class, game::unmakeMove);
+        assertEquals(0, game.repetitionKeyCount());
+
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.unmakeMove();
+        assertEquals(0, game.repetitionKeyCount());
+        assertEquals(before, game);
+    }
+
+    @Test
+    void rejectsPromotionToKingOrPawn() {
+        var game = new ChessGame();
+        var g1 = new ChessPosition(1, 7);
+        var f3 = new ChessPosition(3, 6);
+        assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(g1, f3, ChessPiece.PieceType.KING)));
+        assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(g1, f3, ChessPiece.PieceType.PAWN)));
+        assertEquals(new ChessGame(), game);
+        assertThrows(IllegalArgumentException.class,
+                () -> PackedMove.of(Bitboards.square(g1), Bitboards.square(f3), ChessPiece.PieceType.KING));
+    }
+
+    @Test
+    void validMovesDoesNotChangeTurn() {
+        var game = new ChessGame();
+        game.validMoves(new ChessPosition(7, 5));
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        assertEquals(new ChessGame(), game);
+    }
+}
@@ -0,0 +1,80 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveListTests {
+
+    @Test
+    void packedMovesRoundTrip() {
+        var promotion = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2), ChessPiece.PieceType.KNIGHT);
+        int packed = PackedMove.of(promotion);
+        assertEquals(Bitboards.square(7, 1), PackedMove.from(packed));
+        assertEquals(Bitboards.square(8, 2), PackedMove.to(packed));
+        assertEquals(ChessPiece.PieceType.KNIGHT, PackedMove.promotion(packed));
+        assertEquals(promotion, PackedMove.toChessMove(packed));
+        assertEquals("a7b8n", PackedMove.toString(packed));
+
+        int quiet = PackedMove.of(Bitboards.square(2, 5), Bitboards.square(4, 5));
+        assertNull(PackedMove.promotion(quiet));
+        assertNotEquals(PackedMove.NONE, quiet);
+    }
+
+    @Test
+    void listMatchesCollectionMoves() {
+        var game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        var moves = new MoveList();
+        game.teamValidMoves(ChessGame.TeamColor.WHITE, moves);
+        var adapted = new HashSet<ChessMove>();
+        moves.addTo(adapted);
+        assertEquals(game.teamValidMoves(ChessGame.TeamColor.WHITE), adapted);
+        assertEquals(48, moves.size());
+
+        var e1 = new ChessPosition(1, 5);
+        game.validMoves(e1, moves);
+        adapted.clear();
+        moves.addTo(adapted);
+        assertEquals(game.validMoves(e1), adapted);
+
+        var piece = game.getBoard().getPiece(e1);
+        piece.pieceMoves(game.getBoard(), e1, moves);
+        adapted.clear();
+        moves.addTo(adapted);
+        assertEquals(piece.pieceMoves(game.getBoard(), e1), adapted);
+    }
+
+    @Test
+    void pawnsOnLastRowHaveNoMoves() {
+        var whitePawn = ChessGame.fromFen("P3k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        var blackPawn = ChessGame.fromFen("4k3/8/8/8/8/8/8/p3K3 b - - 0 1");
+        var a8 = new ChessPosition(8, 1);
+        var a1 = new ChessPosition(1, 1);
+
+        assertTrue(whitePawn.validMoves(a8).isEmpty());
+        assertTrue(blackPawn.validMoves(a1).isEmpty());
+        assertTrue(whitePawn.getBoard().getPiece(a8).pieceMoves(whitePawn.getBoard(), a8).isEmpty());
+        assertTrue(blackPawn.getBoard().getPiece(a1).pieceMoves(blackPawn.getBoard(), a1).isEmpty());
+        // only the kings can move
+        assertEquals(5, whitePawn.teamValidMoves(ChessGame.TeamColor.WHITE).size());
+        assertEquals(5, blackPawn.teamValidMoves(ChessGame.TeamColor.BLACK).size());
+    }
+
+    @Test
+    void listGrowsAndSwaps() {
+        var moves = new MoveList(2);
+        moves.add(1);
+        moves.add(2);
+        moves.add(3);
+        assertEquals(3, moves.size());
+        moves.swap(0, 2);
+        assertEquals(3, moves.get(0));
+        assertEquals(1, moves.get(2));
+        assertTrue(moves.contains(2));
+        moves.clear();
+        assertTrue(moves.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> moves.get(0));
+    }
+}
@@ -0,0 +1,71 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZobristTests {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+
+    @Test
+    void incrementalKeyMatchesRecomputedKey() throws InvalidMoveException {
+        var game = new ChessGame();
+        assertEquals(Zobrist.computeKey(game.getBoard()), game.getBoard().getKey());
+
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 4, 5, 4));
+        game.makeMove(move(4, 5, 5, 4));
+        assertEquals(Zobrist.computeKey(game.getBoard()), game.getBoard().getKey());
+
+        game.unmakeMove();
+        assertEquals(Zobrist.computeKey(game.getBoard()), game.getBoard().getKey());
+    }
+
+    @Test
+    void transpositionsShareKey() throws InvalidMoveException {
+        var first = new ChessGame();
+        first.makeMove(move(1, 2, 3, 3));
+        first.makeMove(move(8, 2, 6, 3));
+        first.makeMove(move(1, 7, 3, 6));
+
+        var second = new ChessGame();
+        second.makeMove(move(1, 7, 3, 6));
+        second.makeMove(move(8, 2, 6, 3));
+        second.makeMove(move(1, 2, 3, 3));
+
+        assertEquals(first.positionKey(), second.positionKey());
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    void keyCoversTurnAndCastling() throws InvalidMoveException {
+        var game = new ChessGame();
+        long start = game.positionKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertNotEquals(start, game.positionKey());
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        assertEquals(start, game.positionKey());
+
+        // knights out and back returns the same placement, but the rook move costs castling
+        game.makeMove(move(1, 7, 3, 6));
+        game.makeMove(move(8, 7, 6, 6));
+        game.makeMove(move(3, 6, 1, 7));
+        game.makeMove(move(6, 6, 8, 7));
+        assertEquals(start, game.positionKey());
+
+        game.makeMove(move(2, 8, 4, 8));
+        game.makeMove(move(7, 8, 5, 8));
+        var withRights = new ChessGame(game);
+        game.makeMove(move(1, 8, 3, 8));
+        game.makeMove(move(8, 2, 6, 3));
+        game.makeMove(move(3, 8, 1, 8));
+        game.makeMove(move(6, 3, 8, 2));
+        assertEquals(withRights.getBoard(), game.getBoard());
+        assertNotEquals(withRights, game);
+        assertNotEquals(withRights.positionKey(), game.positionKey());
+    }
+}
@@ -0,0 +1,117 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MoveList;
+import chess.PackedMove;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTests {
+    private static final String PGN = """
+            [Event "Test"]
+            [White "A"]
+            [Black "B"]
+
+            1. e4 e5 2. Nf3 {the usual} Nc6 3. Bb5 a6 (3... Nf6 4. O-O) 4. Ba4 Nf6 5. O-O 1-0
+
+            [Event "Test"]
+
+            1. e4 c5 2. Nf3 d6 $1 3. d4 cxd4 4. Nxd4 Nf6 5. Nc3 a6 1/2-1/2
+
+            [Event "Test"]
+
+            1.d4 d5 2.c4 e6 0-1
+
+            [Event "Bad"]
+
+            1. e4 e5 2. Ke3 *
+            """;
+
+    @Test
+    void buildsAndReadsBook(@TempDir Path dir) throws IOException {
+        var builder = new BookBuilder(8);
+        assertEquals(4, builder.addPgn(new StringReader(PGN)));
+        assertEquals(1, builder.skipped());
+        Path file = dir.resolve("book.bin");
+        int entries = builder.write(file, 1);
+        assertEquals(OpeningBook.HEADER_BYTES + entries * OpeningBook.ENTRY_BYTES, Files.size(file));
+
+        var book = OpeningBook.open(file);
+        assertEquals(entries, book.size());
+        List<BookMove> start = book.lookup(new ChessGame());
+        assertEquals(2, start.size());
+        assertTrue(start.contains(new BookMove(move(2, 5, 4, 5), 3)), start.toString());
+        assertTrue(start.contains(new BookMove(move(2, 4, 4, 4), 1)), start.toString());
+
+        var game = new ChessGame();
+        game.makeMove(PackedMove.of(move(2, 5, 4, 5)));
+        List<BookMove> replies = book.lookup(game);
+        assertEquals(2, replies.size());
+        assertEquals(List.of(), book.lookup(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+
+        ChessMove picked = book.pick(new ChessGame(), new Random(7));
+        assertTrue(picked.equals(move(2, 5, 4, 5)) || picked.equals(move(2, 4, 4, 4)));
+    }
+
+    @Test
+    void minimumGamesDropsRareMoves(@TempDir Path dir) throws IOException {
+        var builder = new BookBuilder(2);
+        builder.addPgn(new StringReader(PGN));
+        var book = OpeningBook.open(write(builder, dir, 2));
+        assertEquals(List.of(new BookMove(move(2, 5, 4, 5), 3)), book.lookup(new ChessGame()));
+    }
+
+    private static Path write(BookBuilder builder, Path dir, int minGames) throws IOException {
+        Path file = dir.resolve("book.bin");
+        builder.write(file, minGames);
+        return file;
+    }
+
+    @Test
+    void rejectsOtherFiles(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("notes.txt");
+        Files.writeString(file, "this is not an opening book");
+        assertThrows(IOException.class, () -> OpeningBook.open(file));
+    }
+
+    @Test
+    void readsSan() {
+        var moves = new MoveList();
+        var inCheck = ChessGame.fromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        assertEquals(PackedMove.of(move(1, 7, 1, 8)), San.parse(inCheck, "Kh1", moves));
+        assertEquals(PackedMove.of(move(1, 6, 2, 6)), San.parse(inCheck, "Rf2!?", moves));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(inCheck, "Nxf7", moves));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(inCheck, "Qh5", moves));
+
+        var promotion = ChessGame.fromFen("1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals(PackedMove.of(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2),
+                ChessPiece.PieceType.QUEEN)), San.parse(promotion, "axb8=Q+", moves));
+        assertEquals(PackedMove.of(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1),
+                ChessPiece.PieceType.KNIGHT)), San.parse(promotion, "a8N", moves));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(promotion, "a8", moves));
+
+        var castling = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/4K3 b kq - 0 1");
+        assertEquals(PackedMove.of(move(8, 5, 8, 3)), San.parse(castling, "O-O-O", moves));
+        assertEquals(PackedMove.of(move(8, 5, 8, 7)), San.parse(castling, "0-0", moves));
+
+        var knights = ChessGame.fromFen("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1");
+        assertThrows(IllegalArgumentException.class, () -> San.parse(knights, "Nd2", moves));
+        assertEquals(PackedMove.of(move(1, 2, 2, 4)), San.parse(knights, "Nbd2", moves));
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
@@ -0,0 +1,94 @@
+package chess.codec;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.MoveList;
+import chess.PackedMove;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameCodecTests {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+
+    @Test
+    void newGameIsSmall() {
+        byte[] bytes = GameCodec.toBytes(new ChessGame());
+        assertEquals(39, bytes.length);
+        assertEquals(GameCodec.VERSION, bytes[0]);
+        assertEquals(new ChessGame().toFen(), GameCodec.fromBytes(bytes).toFen());
+    }
+
+    @Test
+    void roundTripsPositions() {
+        String[] positions = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "rnbqkb1r/pp1p1ppp/5n2/2pPp3/8/8/PPP1PPPP/RNBQKBNR w Kq c6 0 40",
+                "rnbqkbnr/pppp1ppp/8/8/3Pp3/8/PPP1PPPP/RNBQKBNR b KQkq d3 0 3",
+                "8/8/8/8/8/8/8/k6K b - - 0 1200",
+        };
+        for (String fen : positions) {
+            var game = ChessGame.fromFen(fen);
+            var read = GameCodec.fromBytes(GameCodec.toBytes(game));
+            assertEquals(fen, read.toFen());
+            assertEquals(game.positionKey(), read.positionKey());
+        }
+    }
+
+    @Test
+    void keepsMovesAndRepetitions() throws InvalidMoveException {
+        var game = new ChessGame();
+        var moves = new MoveList();
+        ChessMove[] played = {move(1, 7, 3, 6), move(8, 7, 6, 6), move(3, 6, 1, 7), move(6, 6, 8, 7),
+                move(1, 7, 3, 6), move(8, 7, 6, 6), move(3, 6, 1, 7)};
+        for (ChessMove m : played) {
+            game.makeMove(m);
+            moves.add(PackedMove.of(m));
+        }
+
+        var buffer = ByteBuffer.allocate(GameCodec.maxBytes(moves.size())).order(ByteOrder.BIG_ENDIAN);
+        int written = GameCodec.encode(game, moves, buffer);
+        assertEquals(written, buffer.position());
+        buffer.flip().order(ByteOrder.LITTLE_ENDIAN);
+
+        var readMoves = new MoveList();
+        var read = GameCodec.decode(buffer, readMoves);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(moves.toString(), readMoves.toString());
+        read.makeMove(move(6, 6, 8, 7));
+        assertTrue(read.isThreefoldRepetition());
+    }
+
+    @Test
+    void encodesAtBufferPosition() {
+        var buffer = ByteBuffer.allocate(10 + 2 * GameCodec.MAX_BYTES);
+        buffer.position(10);
+        int first = GameCodec.encode(new ChessGame(), buffer);
+        GameCodec.encode(ChessGame.fromFen("8/8/8/8/8/8/8/k6K b - - 0 1"), buffer);
+        buffer.flip().position(10);
+        assertEquals(new ChessGame().toFen(), GameCodec.decode(buffer).toFen());
+        assertEquals(10 + first, buffer.position());
+        assertEquals("8/8/8/8/8/8/8/k6K b - - 0 1", GameCodec.decode(buffer).toFen());
+    }
+
+    @Test
+    void rejectsBadBytes() {
+        byte[] bytes = GameCodec.toBytes(new ChessGame());
+        assertThrows(IllegalArgumentException.class,
+                () -> GameCodec.fromBytes(Arrays.copyOf(bytes, 20)));
+        bytes[0] = 2;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.fromBytes(bytes));
+        bytes[0] = GameCodec.VERSION;
+        bytes[1] = (byte) 0xEE;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.fromBytes(bytes));
+    }
+}
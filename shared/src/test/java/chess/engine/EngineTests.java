@@ -0,0 +1,104 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineTests {
+
+    @Test
+    void findsBackRankMate() {
+        var result = new Engine().search(ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"),
+                SearchLimits.depth(4));
+        assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.bestMove());
+        assertTrue(result.isMate());
+        assertEquals(1, result.mateIn());
+    }
+
+    @Test
+    void takesHangingQueen() {
+        var result = new Engine().search(ChessGame.fromFen("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1"),
+                SearchLimits.depth(3));
+        assertEquals(new ChessMove(new ChessPosition(1, 4), new ChessPosition(5, 4), null), result.bestMove());
+        assertTrue(result.score() > 400);
+    }
+
+    @Test
+    void principalVariationIsPlayable() throws Exception {
+        var game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        var result = new Engine().search(game, SearchLimits.depth(4));
+        assertEquals(result.bestMove(), result.principalVariation().get(0));
+        for (ChessMove move : result.principalVariation()) {
+            game.makeMove(move);
+        }
+    }
+
+    @Test
+    void searchLeavesGameUnchanged() {
+        var game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String before = game.toFen();
+        new Engine().search(game, SearchLimits.depth(3));
+        assertEquals(before, game.toFen());
+    }
+
+    @Test
+    void stopsWithinBudget() {
+        var game = new ChessGame();
+        var byNodes = new Engine().search(game, SearchLimits.nodes(20_000));
+        assertNotNull(byNodes.bestMove());
+        assertTrue(byNodes.nodes() < 25_000, "searched " + byNodes.nodes() + " nodes");
+
+        var byTime = new Engine().search(game, SearchLimits.millis(100));
+        assertNotNull(byTime.bestMove());
+        assertTrue(byTime.elapsedNanos() < 1_000_000_000L, "took " + byTime.elapsedNanos() + "ns");
+    }
+
+    @Test
+    void reportsNoMoveWhenGameIsOver() {
+        var result = new Engine().search(ChessGame.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"), SearchLimits.depth(3));
+        assertNull(result.bestMove());
+        assertEquals(0, result.score());
+    }
+
+    @Test
+    void helperThreadsAgreeOnMate() {
+        var engine = new Engine(4);
+        var game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        var result = engine.search(game, SearchLimits.depth(6));
+        assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.bestMove());
+        assertEquals(1, result.mateIn());
+        assertEquals("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", game.toFen());
+    }
+
+    @Test
+    void stopEndsParallelSearch() throws InterruptedException {
+        var engine = new Engine(3);
+        var stopper = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            engine.stop();
+        });
+        stopper.start();
+        long start = System.nanoTime();
+        var result = engine.search(new ChessGame(), SearchLimits.depth(SearchLimits.MAX_DEPTH));
+        stopper.join();
+        assertNotNull(result.bestMove());
+        assertTrue(System.nanoTime() - start < 5_000_000_000L, "search ignored stop");
+        assertTrue(engine.getTable().hits() > 0);
+    }
+
+    @Test
+    void staleStopIsIgnored() {
+        var engine = new Engine(2);
+        engine.search(new ChessGame(), SearchLimits.depth(2));
+        engine.stop(); // too late for the search that just returned
+
+        var next = engine.search(new ChessGame(), SearchLimits.depth(4));
+        assertEquals(4, next.depth());
+    }
+}
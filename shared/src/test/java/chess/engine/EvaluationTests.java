@@ -0,0 +1,100 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.MoveList;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationTests {
+    private static final String[] POSITIONS = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+
+    @Test
+    void incrementalTotalsMatchFreshBoard() {
+        for (String fen : POSITIONS) {
+            checkTree(ChessGame.fromFen(fen), 3, new MoveList[4]);
+        }
+    }
+
+    private static void checkTree(ChessGame game, int depth, MoveList[] lists) {
+        ChessBoard board = game.getBoard();
+        ChessBoard fresh = ChessBoard.fromFen(board.toFen());
+        assertEquals(fresh.getMidgameScore(), board.getMidgameScore(), board.toFen());
+        assertEquals(fresh.getEndgameScore(), board.getEndgameScore(), board.toFen());
+        assertEquals(fresh.getPhase(), board.getPhase(), board.toFen());
+        assertEquals(fresh.getPawnKey(), board.getPawnKey(), board.toFen());
+        if (depth == 0) {
+            return;
+        }
+        if (lists[depth] == null) {
+            lists[depth] = new MoveList();
+        }
+        MoveList moves = lists[depth];
+        game.teamValidMoves(game.getTeamTurn(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            checkTree(game, depth - 1, lists);
+            game.unmakeMove();
+        }
+    }
+
+    @Test
+    void mirroredPositionsScoreTheSame() {
+        assertEquals(0, Evaluation.evaluate(new ChessGame()));
+        assertEquals(ChessBoard.MAX_PHASE, new ChessGame().getBoard().getPhase());
+        for (String fen : POSITIONS) {
+            assertEquals(Evaluation.evaluate(ChessGame.fromFen(fen)), Evaluation.evaluate(ChessGame.fromFen(mirror(fen))),
+                    fen);
+        }
+    }
+
+    @Test
+    void cachedPawnStructureMatchesUncached() {
+        var pawns = new PawnTable(4);
+        for (int round = 0; round < 2; round++) {
+            for (String fen : POSITIONS) {
+                var game = ChessGame.fromFen(fen);
+                assertEquals(Evaluation.evaluate(game), Evaluation.evaluate(game, pawns), fen);
+            }
+        }
+    }
+
+    @Test
+    void passedPawnIsWorthMoreThanBlockedPawn() {
+        int passed = Evaluation.evaluate(ChessGame.fromFen("4k3/8/8/3P4/8/8/8/4K3 w - - 0 1"));
+        int blocked = Evaluation.evaluate(ChessGame.fromFen("4k3/8/3p4/3P4/8/8/8/4K3 w - - 0 1"));
+        int doubled = Evaluation.evaluate(ChessGame.fromFen("4k3/8/8/3P4/3P4/8/8/4K3 w - - 0 1"));
+        assertTrue(passed > blocked + 100, passed + " vs " + blocked);
+        assertTrue(doubled < passed + 94, "a doubled pawn should be worth less than a full pawn");
+    }
+
+    /**
+     * Flips the board top to bottom and swaps the colors, side to move and
+     * castling rights of a FEN without en passant
+     */
+    private static String mirror(String fen) {
+        String[] fields = fen.split(" ");
+        String[] rows = fields[0].split("/");
+        var placement = new StringBuilder();
+        for (int i = rows.length - 1; i >= 0; i--) {
+            for (char c : rows[i].toCharArray()) {
+                placement.append(Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+            }
+            if (i > 0) {
+                placement.append('/');
+            }
+        }
+        var castling = new StringBuilder();
+        for (char c : fields[2].toCharArray()) {
+            castling.append(c == '-' ? c : Character.isUpperCase(c) ? Character.toLowerCase(c)
+                    : Character.toUpperCase(c));
+        }
+        return placement + (fields[1].equals("w") ? " b " : " w ") + castling + " - " + fields[4] + " " + fields[5];
+    }
+}
@@ -0,0 +1,162 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.MoveList;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTests {
+    @TempDir
+    static Path directory;
+
+    private static final Map<Endgame, byte[]> solved = new EnumMap<>(Endgame.class);
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        for (Endgame endgame : new Endgame[]{Endgame.KQK, Endgame.KRK, Endgame.KPK}) {
+            byte[] values = TablebaseGenerator.generate(endgame, solved);
+            solved.put(endgame, values);
+            TablebaseGenerator.write(endgame, values, directory.resolve(endgame.fileName()));
+        }
+        tablebase = Tablebase.open(directory);
+    }
+
+    @Test
+    void longestMatesAreKnownLengths() {
+        // 10, 16 and 28 moves for the strong side, counted in plies
+        assertEquals(20, longestMate(solved.get(Endgame.KQK)));
+        assertEquals(32, longestMate(solved.get(Endgame.KRK)));
+        assertEquals(56, longestMate(solved.get(Endgame.KPK)));
+        assertFalse(tablebase.covers(Endgame.KBNK));
+    }
+
+    @Test
+    void probesEitherColor() {
+        var white = tablebase.probe(ChessGame.fromFen("7k/8/6K1/8/8/8/8/1Q6 w - - 0 1"));
+        assertEquals(new TablebaseResult(TablebaseResult.Wdl.WIN, 1), white);
+        var black = tablebase.probe(ChessGame.fromFen("1q6/8/8/8/8/6k1/8/7K b - - 0 1"));
+        assertEquals(white, black);
+        var mated = tablebase.probe(ChessGame.fromFen("1Q5k/8/6K1/8/8/8/8/8 b - - 0 1"));
+        assertEquals(new TablebaseResult(TablebaseResult.Wdl.LOSS, 0), mated);
+    }
+
+    @Test
+    void pawnEndings() {
+        assertEquals(TablebaseResult.Wdl.WIN,
+                tablebase.probe(ChessGame.fromFen("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1")).wdl());
+        assertEquals(TablebaseResult.Wdl.DRAW,
+                tablebase.probe(ChessGame.fromFen("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1")).wdl());
+        assertEquals(TablebaseResult.Wdl.DRAW,
+                tablebase.probe(ChessGame.fromFen("4k3/8/8/4P3/8/8/8/4K3 b - - 0 1")).wdl());
+    }
+
+    @Test
+    void ignoresUncoveredPositions() {
+        assertNull(tablebase.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1")));
+        assertNull(tablebase.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1")));
+        assertNull(tablebase.bestMove(new ChessGame()));
+    }
+
+    @Test
+    void valuesAgreeWithSuccessors() {
+        String[] positions = {
+                "8/8/8/3k4/8/8/8/R3K3 w - - 0 1",
+                "8/8/8/3k4/8/8/8/R3K3 b - - 0 1",
+                "8/8/2k5/8/8/8/5Q2/6K1 w - - 0 1",
+                "8/8/8/8/8/2k5/5P2/6K1 w - - 0 1",
+                "8/8/8/8/8/2k5/5P2/6K1 b - - 0 1",
+                "8/8/1k6/8/8/8/1P6/1K6 b - - 0 1",
+        };
+        for (String fen : positions) {
+            var game = ChessGame.fromFen(fen);
+            int value = score(tablebase.probeValue(game));
+            var moves = new MoveList();
+            game.teamValidMoves(game.getTeamTurn(), moves);
+            int best = Integer.MIN_VALUE;
+            for (int i = 0; i < moves.size(); i++) {
+                game.makeMove(moves.get(i));
+                best = Math.max(best, fromMover(score(tablebase.probeValue(game))));
+                game.unmakeMove();
+            }
+            assertEquals(value, best, fen);
+        }
+    }
+
+    @Test
+    void bestMoveMates() throws Exception {
+        var game = ChessGame.fromFen("7k/8/6K1/8/8/8/8/1Q6 w - - 0 1");
+        ChessMove move = tablebase.bestMove(game);
+        game.makeMove(move);
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void enginePlaysFromTablebase() throws Exception {
+        var engine = new Engine();
+        engine.setTablebase(tablebase);
+        var game = ChessGame.fromFen("7k/8/6K1/8/8/8/8/1Q6 w - - 0 1");
+        var result = engine.search(game, SearchLimits.depth(1));
+        assertEquals(0, result.nodes());
+        assertTrue(result.isMate());
+        assertEquals(1, result.mateIn());
+        game.makeMove(result.bestMove());
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void searchScoresCoveredPositions() {
+        var engine = new Engine();
+        engine.setTablebase(tablebase);
+        // queen against rook is not in the tables, but taking the rook is
+        var result = engine.search(ChessGame.fromFen("8/8/8/8/1k6/8/1r6/1Q2K3 w - - 0 1"),
+                SearchLimits.depth(2));
+        assertEquals(new ChessMove(new ChessPosition(1, 2), new ChessPosition(2, 2), null), result.bestMove());
+        assertTrue(result.isMate());
+    }
+
+    /**
+     * Turns a probe into a score for the side to move that orders the same
+     * way a search would: quicker wins and slower losses are worth more.
+     * Anything the tables leave out, like a bare king or an underpromotion
+     * to a minor piece, is a draw.
+     */
+    private static int score(int value) {
+        if (value >= 2) {
+            return 1000 - (value - 2);
+        }
+        if (value <= -2) {
+            return -1000 + (-value - 2);
+        }
+        return 0;
+    }
+
+    /**
+     * Turns the score of the position after a move, from the opponent's
+     * side, into what the move is worth to the side that made it
+     */
+    private static int fromMover(int reply) {
+        if (reply > 0) {
+            return -reply + 1;
+        }
+        return reply < 0 ? -reply - 1 : 0;
+    }
+
+    private static int longestMate(byte[] values) {
+        int longest = 0;
+        for (byte value : values) {
+            longest = Math.max(longest, (value & 0xFF) - 2);
+        }
+        return longest;
+    }
+}
@@ -0,0 +1,105 @@
+package chess.engine;
+
+import chess.PackedMove;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTests {
+
+    @Test
+    void storedEntryReadsBack() {
+        var table = new TranspositionTable(1);
+        int move = PackedMove.of(12, 28);
+        table.store(0x1234_5678_9ABC_DEF0L, move, -30950, 17, TranspositionTable.LOWER);
+
+        long entry = table.probe(0x1234_5678_9ABC_DEF0L);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-30950, TranspositionTable.score(entry));
+        assertEquals(17, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(0L, table.probe(0x1234_5678_9ABC_DEF1L));
+    }
+
+    @Test
+    void storingWithoutMoveKeepsOldMove() {
+        var table = new TranspositionTable(1);
+        int move = PackedMove.of(1, 18);
+        table.store(42L, move, 10, 3, TranspositionTable.EXACT);
+        table.store(42L, PackedMove.NONE, -5, 4, TranspositionTable.UPPER);
+
+        long entry = table.probe(42L);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-5, TranspositionTable.score(entry));
+        assertEquals(4, TranspositionTable.depth(entry));
+    }
+
+    @Test
+    void oldSearchesAreReplacedFirst() {
+        var table = new TranspositionTable(1);
+        long stride = table.capacity() / 4; // keys this far apart share a bucket
+        for (int i = 0; i < 4; i++) {
+            table.store(i * stride, PackedMove.NONE, 0, 20, TranspositionTable.EXACT);
+        }
+        table.newSearch();
+        assertFalse(table.store(stride, PackedMove.NONE, 0, 20, TranspositionTable.EXACT));
+        assertTrue(table.store(4 * stride, PackedMove.NONE, 0, 2, TranspositionTable.EXACT));
+
+        assertNotEquals(0L, table.probe(stride), "entry refreshed this search was replaced");
+        assertNotEquals(0L, table.probe(4 * stride));
+    }
+
+    @Test
+    void tornWritesNeverMatchWrongKey() throws InterruptedException {
+        var table = new TranspositionTable(1);
+        var done = new AtomicBoolean();
+        var bad = new AtomicLong();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                // every key lands in bucket 0, and its depth and score are derived from the key
+                for (long i = seed; !done.get(); i += threads.length) {
+                    long key = i << 32;
+                    table.store(key, PackedMove.NONE, (int) (i & 0x3FFF), (int) (i & 0xFF),
+                            TranspositionTable.EXACT);
+                    long probeKey = (i / 2) << 32;
+                    long entry = table.probe(probeKey);
+                    if (entry != 0 && TranspositionTable.depth(entry) != ((i / 2) & 0xFF)) {
+                        bad.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        Thread.sleep(200);
+        done.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, bad.get());
+    }
+
+    @Test
+    void countsAddUpUntilCleared() {
+        var table = new TranspositionTable(1);
+        table.addCounts(10, 4, 1);
+        table.addCounts(5, 2, 0);
+        assertEquals(15, table.probes());
+        assertEquals(6, table.hits());
+        assertEquals(1, table.collisions());
+
+        table.clear();
+        assertEquals(0, table.probes());
+    }
+
+    @Test
+    void sizeIsRoundedToPowerOfTwo() {
+        assertEquals(1 << 16, new TranspositionTable(1).capacity());
+        assertEquals(1 << 17, new TranspositionTable(3).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+    }
+}
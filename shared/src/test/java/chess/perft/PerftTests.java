@@ -0,0 +1,65 @@
+package chess.perft;
+
+import chess.ChessGame;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTests {
+
+    @Test
+    void startingPosition() {
+        var game = new ChessGame();
+        assertEquals(20, Perft.count(game, 1));
+        assertEquals(400, Perft.count(game, 2));
+        assertEquals(8902, Perft.count(game, 3));
+        assertEquals(new ChessGame(), game);
+    }
+
+    @Test
+    void startingPositionDepthFour() {
+        assertEquals(197281, Perft.count(new ChessGame(), 4));
+    }
+
+    @Test
+    void rookEndgame() {
+        var game = ChessGame.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        assertEquals(14, Perft.count(game, 1));
+        assertEquals(191, Perft.count(game, 2));
+        assertEquals(2812, Perft.count(game, 3));
+        assertEquals(43238, Perft.count(game, 4));
+    }
+
+    @Test
+    void castlingAndEnPassant() {
+        var game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(48, Perft.count(game, 1));
+        assertEquals(2039, Perft.count(game, 2));
+        assertEquals(97862, Perft.count(game, 3));
+    }
+
+    @Test
+    void promotionsAndChecks() {
+        var game = ChessGame.fromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        assertEquals(6, Perft.count(game, 1));
+        assertEquals(264, Perft.count(game, 2));
+        assertEquals(9467, Perft.count(game, 3));
+
+        game = ChessGame.fromFen("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8");
+        assertEquals(44, Perft.count(game, 1));
+        assertEquals(1486, Perft.count(game, 2));
+        assertEquals(62379, Perft.count(game, 3));
+    }
+
+    @Test
+    void divideMatchesCount() {
+        var game = new ChessGame();
+        var serial = Perft.divide(game, 3, 1);
+        var parallel = Perft.divide(game, 3, 4);
+
+        assertEquals(8902, serial.nodes());
+        assertEquals(serial.divide(), parallel.divide());
+        assertEquals(20, serial.divide().size());
+        assertEquals(new ChessGame(), game);
+    }
+}